@@ -66,19 +66,61 @@ public class DisjointSets {
 
   /**
    *  find() finds the (int) name of the set containing a given element.
-   *  Performs path compression along the way.
+   *  Performs path halving along the way:  every other element on the path
+   *  to the root is made to point to its grandparent, which roughly halves
+   *  the path.  The loop runs in constant stack space, however long the path.
    *
    *  @param x the element sought.
    *  @return the set containing x.
    **/
   public int find(int x) {
-    if (array[x] < 0) {
-      return x;                         // x is the root of the tree; return it
-    } else {
-      // Find out who the root is; compress path by making the root x's parent.
-      array[x] = find(array[x]);
-      return array[x];                                       // Return the root
+    while (array[x] >= 0) {
+      int parent = array[x];
+      if (array[parent] < 0) {
+        return parent;                                // x's parent is the root
+      }
+      array[x] = array[parent];                   // point x at its grandparent
+      x = array[x];
+    }
+    return x;                           // x is the root of the tree; return it
+  }
+
+  /**
+   *  findAll() finds the name of the set containing each of an array of
+   *  elements.
+   *
+   *  @param elements the elements sought.
+   *  @param names an array at least as long as "elements", which receives
+   *  the name of the set containing elements[i] at index i.
+   *  @return names.
+   **/
+  public int[] findAll(int[] elements, int[] names) {
+    for (int i = 0; i < elements.length; i++) {
+      names[i] = find(elements[i]);
+    }
+    return names;
+  }
+
+  /**
+   *  unionAll() unites the sets containing xs[i] and ys[i], for every i, in
+   *  order.  Unlike union(), it accepts any elements, not just roots, and
+   *  skips pairs already in the same set.
+   *
+   *  @param xs the first element of each pair.
+   *  @param ys the second element of each pair; as long as xs.
+   *  @return the number of pairs that united two different sets.
+   **/
+  public int unionAll(int[] xs, int[] ys) {
+    int merges = 0;
+    for (int i = 0; i < xs.length; i++) {
+      int root1 = find(xs[i]);
+      int root2 = find(ys[i]);
+      if (root1 != root2) {
+        union(root1, root2);
+        merges++;
+      }
     }
+    return merges;
   }
 
   /**
@@ -0,0 +1,158 @@
+/* AnalysisServerTest.java */
+
+import java.util.Arrays;
+import java.util.List;
+
+import player.AnalysisServer;
+
+/**
+ * Tests that an {@code AnalysisServer} answers "-" for a position in which
+ * the side to move has no valid move, both from a fresh engine and from one
+ * that has just analyzed an unrelated position, and that it answers "error"
+ * for positions no game can reach.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java AnalysisServerTest
+ * </pre>
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class AnalysisServerTest {
+
+  /**
+   * A position with nine chips a side, black to move, in which every empty
+   * square black may use is next to two black chips or to a black pair, so
+   * black has no valid move.  Neither player has a network.
+   */
+  private static final String NO_MOVE =
+      "....b...wb...bw.w.b.........wbw..w........b..b....b.wbww........";
+
+  /**
+   * An ordinary position early in a game, black to move.
+   */
+  private static final String OPENING =
+      "...........b........w.....b..w..........w.........b.............";
+
+  /**
+   * The number of failed checks.
+   */
+  private static int failures = 0;
+
+  /**
+   * Analyzes a batch on a new single-threaded server, so that every line is
+   * searched by the same engines, and returns the answers.
+   *
+   * @param lines     the request lines.
+   * @return          the answer lines.
+   */
+  private static List<String> analyze(String... lines)
+      throws InterruptedException {
+    AnalysisServer server = new AnalysisServer(1, 3, 16);
+    return server.analyzeBatch(Arrays.asList(lines));
+  }
+
+  /**
+   * Returns the text of a position holding the given chips.
+   *
+   * @param black     the squares of the black chips, each as the two digits
+   *                  xy, separated by spaces.
+   * @param white     the squares of the white chips, likewise.
+   * @return          the position, in the format of
+   *                  {@code Position.parse}.
+   */
+  private static String position(String black, String white) {
+    char[] squares = new char[64];
+    Arrays.fill(squares, '.');
+    String[] colors = { black, white };
+    char[] chips = { 'b', 'w' };
+    for (int c = 0; c < 2; c++) {
+      for (String square : colors[c].trim().split("\\s+")) {
+        if (!square.isEmpty()) {
+          int x = square.charAt(0) - '0';
+          int y = square.charAt(1) - '0';
+          squares[8 * y + x] = chips[c];
+        }
+      }
+    }
+    return new String(squares);
+  }
+
+  /**
+   * Reports whether an answer is an error.
+   *
+   * @param what      a description of the check.
+   * @param answer    the answer line.
+   */
+  private static void checkError(String what, String answer) {
+    if (!answer.startsWith("error")) {
+      System.out.println("  FAILED " + what + ": got \"" + answer + "\"");
+      failures++;
+    } else {
+      System.out.println("  " + what + ": " + answer);
+    }
+  }
+
+  /**
+   * Reports whether an answer names the expected move.
+   *
+   * @param what      a description of the check.
+   * @param answer    the answer line.
+   * @param noMove    true if the answer should be "-", false if it should
+   *                  be a move.
+   */
+  private static void check(String what, String answer, boolean noMove) {
+    String move = answer.split(" ")[0];
+    if (answer.startsWith("error") || move.equals("-") != noMove) {
+      System.out.println("  FAILED " + what + ": got \"" + answer + "\"");
+      failures++;
+    } else {
+      System.out.println("  " + what + ": " + answer);
+    }
+  }
+
+  /**
+   * Runs the tests and exits with status 1 if any failed.
+   *
+   * @param args      ignored.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    System.out.println("Analyzing a position with no valid move on a new " +
+        "engine.");
+    List<String> answers = analyze(NO_MOVE + " b");
+    check("no valid move", answers.get(0), true);
+
+    System.out.println("Analyzing the same position after an opening " +
+        "position.");
+    answers = analyze(OPENING + " b", NO_MOVE + " b");
+    check("opening position", answers.get(0), false);
+    check("no valid move", answers.get(1), true);
+
+    System.out.println("Analyzing the same position for white, who has " +
+        "moves.");
+    answers = analyze(NO_MOVE + " w");
+    check("white to move", answers.get(0), false);
+
+    System.out.println("Analyzing positions no game can reach.");
+    answers = analyze(position("", "00") + " b",
+                      position("03", "33") + " w",
+                      position("33", "30") + " w",
+                      position("25 45 65", "22 32 42") + " w",
+                      position("33", "") + " w",
+                      position("", "33 44") + " b");
+    checkError("white chip in a corner", answers.get(0));
+    checkError("black chip in white's goal", answers.get(1));
+    checkError("white chip in black's goal", answers.get(2));
+    checkError("cluster of three", answers.get(3));
+    checkError("black ahead of white", answers.get(4));
+    checkError("white two chips ahead", answers.get(5));
+
+    if (failures == 0) {
+      System.out.println("All tests passed.");
+    } else {
+      System.out.println(failures + " tests failed.");
+      System.exit(1);
+    }
+  }
+}
@@ -1,9 +1,9 @@
 /* Board.java */
 package game;
 
-import list.DList;
-import list.InvalidNodeException;
-import list.List;
+import java.util.Random;
+
+import list.IntList;
 import player.Move;
 
 /**
@@ -14,16 +14,6 @@ import player.Move;
  */
 public class Board {
 
-  /**
-   * A direction away from a square on a game board.  The ordering of
-   * directions is: none, left, up-left, up, up-right, right, down-right, down,
-   * down-left.
-   * 
-   * @author      Jason Goldfine-Middleton
-   * @version     1.0, 8 October 2014
-   */
-  private static enum Direction { NA, L, UL, U, UR, R, DR, D, DL }
-
   /**
    * Constant for the player of color black.
    */
@@ -55,12 +45,135 @@ public class Board {
   static final int SIZE = 8;
 
   /**
-   * Returns an empty list.
+   * Constant for an upper bound on the number of valid moves a player can
+   * have on any board.  Use it to size move buffers.
+   */
+  static final int MAX_MOVES = MAX_CHIPS * SIZE * SIZE;
+
+  /**
+   * Constant for the encoding of "no move".  No valid move encodes to it.
+   */
+  static final int NO_MOVE = -1;
+
+  /**
+   * Bit set in the encoding of a step move.  Below it, bits 6-11 hold the
+   * square the chip leaves and bits 0-5 the square it lands on.  Squares are
+   * numbered x * SIZE + y.
+   */
+  private static final int STEP_FLAG = 1 << 12;
+
+  /**
+   * Horizontal and vertical offsets of the eight directions, in the order
+   * left, up-left, up, up-right, right, down-right, down, down-left.
+   * Direction d + 4 (mod 8) is the opposite of direction d.
+   */
+  private static final int[] DX = { -1, -1, 0, 1, 1, 1, 0, -1 };
+  private static final int[] DY = { 0, -1, -1, -1, 0, 1, 1, 1 };
+
+  /**
+   * Seed for the Zobrist keys.  It is fixed so that position hashes are
+   * stable from one run of the program to the next.
+   */
+  private static final long ZOBRIST_SEED = 0x61B2014L;
+
+  /**
+   * Zobrist keys for every (color, square) pair.  Read them with
+   * {@code zobristKey}.
+   */
+  private static final long[] ZOBRIST = new long[2 * SIZE * SIZE];
+
+  /**
+   * Zobrist key XORed into a position hash when WHITE is the side to move.
+   */
+  private static final long WHITE_TO_MOVE;
+
+  static {
+    Random rand = new Random(ZOBRIST_SEED);
+    for (int i = 0; i < ZOBRIST.length; i++) {
+      ZOBRIST[i] = rand.nextLong();
+    }
+    WHITE_TO_MOVE = rand.nextLong();
+  }
+
+  /**
+   * Returns the encoding of an add move to a given square.
+   * 
+   * @param to      the index of the square the chip is added to.
+   * @return        the encoded add move.
+   */
+  static int addMove(int to) {
+    return to;
+  }
+
+  /**
+   * Returns the index used for a color in arrays kept per player.
+   * 
+   * @param side    the color of the player.  Must be BLACK or WHITE.
+   * @return        0 for BLACK, 1 for WHITE.
+   */
+  private static int colorIndex(int side) {
+    return side == BLACK ? 0 : 1;
+  }
+
+  /**
+   * Returns a new {@code Move} equivalent to an encoded move.
+   * 
+   * @param move    an encoded add or step move.
+   * @return        the corresponding {@code Move} object.
+   */
+  static Move decodeMove(int move) {
+    int to = moveTo(move);
+    if (isStep(move)) {
+      int from = moveFrom(move);
+      return new Move(to / SIZE, to % SIZE, from / SIZE, from % SIZE);
+    }
+    return new Move(to / SIZE, to % SIZE);
+  }
+
+  /**
+   * Returns the encoding of a {@code Move}.  The move's squares are assumed
+   * to be on the board.
    * 
-   * @return    a new empty {@code List}.
+   * @param move    an add or step move.
+   * @return        the encoded move.
    */
-  private static List genEmptyList() {
-    return new DList();
+  static int encodeMove(Move move) {
+    int to = move.x1 * SIZE + move.y1;
+    if (move.moveKind == Move.STEP) {
+      return stepMove(move.x2 * SIZE + move.y2, to);
+    }
+    return addMove(to);
+  }
+
+  /**
+   * Returns whether an encoded move is a step move.
+   * 
+   * @param move    an encoded add or step move.
+   * @return        true if {@code move} is a step move, false if it is an add
+   *                move.
+   */
+  static boolean isStep(int move) {
+    return (move & STEP_FLAG) != 0;
+  }
+
+  /**
+   * Returns the square an encoded step move leaves.
+   * 
+   * @param move    an encoded step move.
+   * @return        the index of the square the chip steps from.
+   */
+  static int moveFrom(int move) {
+    return (move >> 6) & 63;
+  }
+
+  /**
+   * Returns the square an encoded move places a chip on.
+   * 
+   * @param move    an encoded add or step move.
+   * @return        the index of the square the chip lands on.
+   */
+  static int moveTo(int move) {
+    return move & 63;
   }
 
   /**
@@ -78,59 +191,105 @@ public class Board {
   }
 
   /**
-   * Returns the opposite of the given direction.
+   * Returns the encoding of a step move between two squares.
    * 
-   * @param dir     the given direction.
-   * @return        the Direction pointing the opposite way.  Returns 
-   *                Direction.NA (none) otherwise.
+   * @param from    the index of the square the chip steps from.
+   * @param to      the index of the square the chip steps to.
+   * @return        the encoded step move.
    */
-  private static Direction oppDirection(Direction dir) {
-    switch (dir) {
-      case L:
-        return Direction.R;
-      case UL:
-        return Direction.DR;
-      case U:
-        return Direction.D;
-      case UR:
-        return Direction.DL;
-      case R:
-        return Direction.L;
-      case DR:
-        return Direction.UL;
-      case D:
-        return Direction.U;
-      case DL:
-        return Direction.UR;
-      default:
-        return Direction.NA;
-    }
+  static int stepMove(int from, int to) {
+    return STEP_FLAG | from << 6 | to;
   }
 
   /**
-   * List of all black chips on this board.
+   * Returns the Zobrist key for a chip of a given color on square (x,y).
+   * 
+   * @param side      the color of the chip.  Must be BLACK or WHITE.
+   * @param x         the x-coordinate of the square.
+   * @param y         the y-coordinate of the square.
+   * @return          the random key representing that chip on that square.
    */
-  private List bChips;
+  private static long zobristKey(int side, int x, int y) {
+    int offset = side == BLACK ? 0 : SIZE * SIZE;
+    return ZOBRIST[offset + x * SIZE + y];
+  }
   
   /**
-   * List of all white chips on this board.
+   * A 2-D array representation of the game grid.
    */
-  private List wChips;
-  
+  private int[][] board;
+
   /**
-   * The total number of networks of black chips on this board.
+   * The number of same-colored chips adjacent to each square, indexed by
+   * [color index][square].  Used for constant-time cluster checks.
    */
-  int blackNets;
-  
+  private final int[][] adjacent;
+
   /**
-   * The total number of networks of white chips on this board.
+   * The number of chips each player has on the board, by color index.
    */
-  int whiteNets;
-  
+  private final int[] chipCount;
+
   /**
-   * A 2-D array representation of the game grid.
+   * The squares occupied by each player's chips, by color index, as a bit
+   * set in which bit {@code x * SIZE + y} stands for square (x,y).  This is
+   * the whole position in two words, from which {@code snapshot} makes a
+   * {@code Position}.
    */
-  private int[][] board;
+  private final long[] chips;
+
+  /**
+   * The number of connections each player has, by color index.
+   */
+  private final int[] connections;
+
+  /**
+   * The number of chips each player has in each of its goals, indexed by
+   * [color index][goal].  Goal 0 is the top (BLACK) or left (WHITE) goal and
+   * goal 1 is the opposite one.
+   */
+  private final int[][] goalChips;
+
+  /**
+   * The cached result of {@code longestPath} for each color index.  Only
+   * meaningful while the matching {@code pathsDirty} entry is false.
+   */
+  private final int[] longestPaths;
+
+  /**
+   * The nearest occupied square in each direction from each square, at index
+   * {@code square * DX.length + direction}, or -1 if the edge of the board
+   * comes first.  Kept up to date for occupied squares only.  It is one flat
+   * array so that {@code copyFrom} copies it at once.
+   */
+  private final int[] nearest;
+
+  /**
+   * Whether each player's connections changed since its longest path was
+   * last computed, by color index.
+   */
+  private final boolean[] pathsDirty;
+
+  /**
+   * The number of valid add moves each player would have if it had fewer
+   * than MAX_CHIPS chips, by color index.
+   */
+  private final int[] validAdds;
+
+  /**
+   * The path being searched by {@code countNetworks}: the squares of its
+   * chips, the direction each was reached from, and the next direction to
+   * try from each.  Reused by every search.
+   */
+  private final IntList pathArrivals;
+  private final IntList pathNext;
+  private final IntList pathSquares;
+
+  /**
+   * The Zobrist hash of the chips currently on this board.  It is updated
+   * incrementally by {@code doMove} and {@code undoMove}.
+   */
+  private long hash;
 
   /**
    * Constructs a new game board for the Network game.  Every square is set to
@@ -138,72 +297,267 @@ public class Board {
    */
   public Board() {
     board = new int[SIZE][SIZE];
-    bChips = genEmptyList();
-    wChips = genEmptyList();
-    blackNets = 0;
-    whiteNets = 0;
+    hash = 0L;
+    adjacent = new int[2][SIZE * SIZE];
+    chipCount = new int[2];
+    chips = new long[2];
+    connections = new int[2];
+    goalChips = new int[2][2];
+    longestPaths = new int[2];
+    nearest = new int[SIZE * SIZE * DX.length];
+    pathsDirty = new boolean[2];
+    pathArrivals = new IntList(MAX_CHIPS);
+    pathNext = new IntList(MAX_CHIPS);
+    pathSquares = new IntList(MAX_CHIPS);
+    validAdds = new int[2];
+    for (int sq = 0; sq < SIZE * SIZE; sq++) {
+      if (isValidAdd(BLACK, sq)) {
+        validAdds[colorIndex(BLACK)]++;
+      }
+      if (isValidAdd(WHITE, sq)) {
+        validAdds[colorIndex(WHITE)]++;
+      }
+    }
+  }
+
+  /**
+   * Constructs a copy of a game board.  The copy shares nothing with the
+   * original, so each may be changed, or used by a different thread,
+   * without affecting the other.
+   *
+   * @param original    the board to copy.
+   */
+  public Board(Board original) {
+    this();
+    copyFrom(original);
+  }
+
+  /**
+   * Constructs a game board holding a given position.
+   *
+   * @param position    the position to set up.
+   */
+  public Board(Position position) {
+    this();
+    setPosition(position);
+  }
+
+  /**
+   * Links a chip just placed on square {@code square} into the
+   * {@code nearest} table and updates the connection counts: the chip
+   * connects to the nearest same-colored chip along each line, and cuts any
+   * connection that passed through its square.
+   * 
+   * @param square    the index of the newly occupied square.
+   * @param side      the color of the new chip.
+   */
+  private void addLinks(int square, int side) {
+    for (int d = 0; d < DX.length / 2; d++) {
+      int opp = d + DX.length / 2;
+      int a = findNearest(square, d);
+      int b = findNearest(square, opp);
+      nearest[square * DX.length + d] = a;
+      nearest[square * DX.length + opp] = b;
+      if (a >= 0) {
+        nearest[a * DX.length + opp] = square;
+      }
+      if (b >= 0) {
+        nearest[b * DX.length + d] = square;
+      }
+      toggleConnections(a, b, side, -1);
+    }
+    pathsDirty[colorIndex(side)] = true;
+  }
+
+  /**
+   * Returns the square of the chip of color {@code side} connected to square
+   * {@code square} in direction {@code dir}: the nearest chip along that line,
+   * if it has color {@code side}.  Allocates nothing; for an occupied square
+   * it is a single table lookup.
+   * 
+   * @param side      the color of the player whose chips are sought.
+   * @param square    the index of the square to look from.
+   * @param dir       the direction to look, from 0 to 7, in the order of
+   *                  {@code DX} and {@code DY}.
+   * @return          the index of the connected chip's square, or -1 if the
+   *                  line reaches the edge of the board or a chip of the
+   *                  other color first.
+   */
+  int connectedSquare(int side, int square, int dir) {
+    int next;
+    if (board[square / SIZE][square % SIZE] != NONE) {
+      next = nearest[square * DX.length + dir];
+    } else {
+      next = findNearest(square, dir);
+    }
+    if (next >= 0 && board[next / SIZE][next % SIZE] == side) {
+      return next;
+    }
+    return -1;
   }
 
   /**
-   * Counts and returns the number of chips in either of a given player's goals.
+   * Returns the number of chips in either of a given player's goals.
    * 
    * @param side      the color of the player.  Must be BLACK or WHITE.
    * @return          the total number of chips in either of the given player's
    *                  goals.
    */
   int chipsInGoal(int side) {
-    int numGoalChips = 0;
-    for (Object o : listChips(side)) {
-      Chip c = (Chip)o;
-      if (isInGoal(c.side, c.x, c.y)) {
-        numGoalChips++;
-      }
+    int[] goals = goalChips[colorIndex(side)];
+    return goals[0] + goals[1];
+  }
+
+  /**
+   * Makes this board an exact copy of another, including every
+   * incrementally maintained count and cache, without allocating anything.
+   * This is the cheapest way for a search thread to fork a position: keep
+   * one board per thread and copy the shared board into it.
+   *
+   * @param other     the board to copy.  It must not be changed by another
+   *                  thread during the copy.
+   */
+  public void copyFrom(Board other) {
+    if (other == this) {
+      return;
+    }
+    for (int x = 0; x < SIZE; x++) {
+      System.arraycopy(other.board[x], 0, board[x], 0, SIZE);
+    }
+    System.arraycopy(other.nearest, 0, nearest, 0, nearest.length);
+    for (int i = 0; i < 2; i++) {
+      System.arraycopy(other.adjacent[i], 0, adjacent[i], 0, SIZE * SIZE);
+      System.arraycopy(other.goalChips[i], 0, goalChips[i], 0, 2);
     }
-    return numGoalChips;
+    System.arraycopy(other.chipCount, 0, chipCount, 0, 2);
+    System.arraycopy(other.chips, 0, chips, 0, 2);
+    System.arraycopy(other.connections, 0, connections, 0, 2);
+    System.arraycopy(other.longestPaths, 0, longestPaths, 0, 2);
+    System.arraycopy(other.pathsDirty, 0, pathsDirty, 0, 2);
+    System.arraycopy(other.validAdds, 0, validAdds, 0, 2);
+    hash = other.hash;
   }
 
   /**
-   * Counts and returns the number of neighboring chips to the chip at a given
-   * location with the same color as {@code side}.  A neighbor is a chip that is
-   * in a square adjacent to the one located at (x,y) diagonally, horizontally,
-   * or vertically.
+   * Counts a player's networks by a depth-first search from each of its
+   * chips in its first goal.  The path being searched is kept on
+   * {@code pathSquares}, with the direction each chip was reached from on
+   * {@code pathArrivals} and the next direction to try from it on
+   * {@code pathNext}; the search extends and backs up the path in place, so
+   * it allocates nothing.  A path is a network when it reaches a chip in the
+   * opposite goal with at least NETWORK_LENGTH chips, touching no goal in
+   * between and never going on in the direction it came from, nor back.
    * 
-   * @param side      the color of the chip at (x,y)
-   * @param x         the x-coordinate of the square whose neighbors are sought.
-   * @param y         the y-coordinate of the square whose neighbors are sought.
-   * @return          the number of "touching" chips to the given chip.
+   * @param side      the color of the player.  Must be BLACK or WHITE.
+   * @param all       whether to count every network, rather than stop at
+   *                  the first.
+   * @return          the number of networks found: with {@code all} false,
+   *                  0 or 1.
    */
-  private int countNeighbors(int side, int x, int y) {
-    int result = countNeighborsHelper(side, x, y, 1);
-    return result;
+  private int countNetworks(int side, boolean all) {
+    int count = 0;
+    for (long bits = chips[colorIndex(side)]; bits != 0; bits &= bits - 1) {
+      int start = Long.numberOfTrailingZeros(bits);
+      if (goalIndex(side, start) != 0) {
+        continue;
+      }
+      pathSquares.clear();
+      pathArrivals.clear();
+      pathNext.clear();
+      pathSquares.push(start);
+      pathArrivals.push(-1);
+      pathNext.push(0);
+      long used = 1L << start;
+      while (!pathSquares.isEmpty()) {
+        int square = pathSquares.back();
+        int lastDir = pathArrivals.back();
+        int d = pathNext.pop();
+        if (d == DX.length) {
+          // every direction tried: back up
+          pathSquares.pop();
+          pathArrivals.pop();
+          used &= ~(1L << square);
+          continue;
+        }
+        pathNext.push(d + 1);
+        if (lastDir >= 0 && (d == lastDir || d == (lastDir + 4) % DX.length)) {
+          continue;
+        }
+        int next = connectedSquare(side, square, d);
+        if (next < 0 || (used & (1L << next)) != 0) {
+          continue;
+        }
+        int goal = goalIndex(side, next);
+        if (goal == 1 && pathSquares.length() + 1 >= NETWORK_LENGTH) {
+          count++;
+          if (!all) {
+            return count;
+          }
+        } else if (goal < 0) {
+          pathSquares.push(next);
+          pathArrivals.push(d);
+          pathNext.push(0);
+          used |= 1L << next;
+        }
+      }
+    }
+    return count;
   }
 
   /**
-   * Serves as an internal helper method for the {@code countNeighbors} method.
-   * It calls itself once per discovered neighbor to determine whether this
-   * neighbor has any neighbors. It then returns the total number of 
-   * same-colored neighbors to the chip located at (x,y).
+   * Returns the number of chips of color {@code side} that a chip on square
+   * (x,y) would be connected to.  The square itself need not be occupied.
    * 
-   * @param side      the color of the chip at (x,y).
-   * @param x         the x-coordinate of the square whose neighbors are sought.
-   * @param y         the y-coordinate of the square whose neighbors are sought.
-   * @param run       either 1 or 2 signifying whether we are looking for
-   *                  primary neighbors or secondary neighbors, respectively.
-   * @return          the total number of neighbors of the same color found
-   *                  recursively.
+   * @param side      the color of the player whose connections are sought.
+   * @param x         the x-coordinate of the square.
+   * @param y         the y-coordinate of the square.
+   * @return          the number of directions in which a same-colored chip
+   *                  is reachable from (x,y) without an intervening chip of
+   *                  the opposite color.
    */
-  private int countNeighborsHelper(int side, int x, int y, int run) {
+  int countConnections(int side, int x, int y) {
     int count = 0;
-    for (Direction d : Direction.values()) {
-      if (d != Direction.NA) {
-        Chip c = getInDirection(d, 1, x, y);
-        if (c.side == side) {
+    for (int dx = -1; dx <= 1; dx++) {
+      for (int dy = -1; dy <= 1; dy++) {
+        if (dx == 0 && dy == 0) {
+          continue;
+        }
+        int xx = x + dx;
+        int yy = y + dy;
+        // skip empty squares; stop at the edge or at any chip
+        while (onBoard(xx, yy) && board[xx][yy] == NONE) {
+          xx += dx;
+          yy += dy;
+        }
+        if (onBoard(xx, yy) && board[xx][yy] == side) {
           count++;
-          if (run == 1) {
-            count += countNeighborsHelper(side, c.x, c.y, 2) - 1;
-          }
-          if (count >= 2) {
-            return count;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Counts the valid moves for the player of the given color without
+   * building them.  Equivalent to, but much cheaper than, calling
+   * {@code generateMoves} and keeping only the count.  While the player can
+   * still add chips the count is maintained incrementally and this method
+   * runs in constant time.
+   * 
+   * @param side        the color of the player whose moves are counted.
+   * @return            the number of valid moves from the current board for
+   *                    player {@code side}.
+   */
+  int countValidMoves(int side) {
+    if (getNumChips(side) < MAX_CHIPS) {
+      return validAdds[colorIndex(side)];
+    }
+    int count = 0;
+    for (int from = 0; from < SIZE * SIZE; from++) {
+      if (board[from / SIZE][from % SIZE] == side) {
+        for (int to = 0; to < SIZE * SIZE; to++) {
+          if (isLegal(side, from, to)) {
+            count++;
           }
         }
       }
@@ -214,287 +568,190 @@ public class Board {
   /**
    * Updates the game board with the given move for the given side (color).
    * This method is only to be called after determining the validity of the
-   * move with {@code isValidMove}, or in the special case of 
-   * {@code formsCluster}, which is called at the end of {@code isValidMove}.
+   * move with {@code isValidMove}.
    * 
    * @param side      the color of the player doing the move.  Must be BLACK or
    *                  WHITE.
    * @param move      the valid move to be made.  Must be an add or a step move.
    */
   public void doMove(int side, Move move) {
-    if (move.moveKind == Move.STEP) {
-      board[move.x2][move.y2] = NONE;
+    doMove(side, encodeMove(move));
+  }
+
+  /**
+   * Updates the game board with the given encoded move for the given side.
+   * The move must be valid, as for {@code doMove(int, Move)}.
+   * 
+   * @param side      the color of the player doing the move.  Must be BLACK or
+   *                  WHITE.
+   * @param move      the valid encoded move to be made.
+   */
+  void doMove(int side, int move) {
+    if (isStep(move)) {
+      setSquare(moveFrom(move), NONE, side);
     }
-    board[move.x1][move.y1] = side; 
-    updateChips(side);
+    setSquare(moveTo(move), side, side);
   }
 
   /**
-   * Determines whether a move by a given player will cause more than two of 
-   * the same-colored chips to be touching on the board.  This method is only
-   * to be called by {@code isValidMove} after all other validity checks have
-   * completed with success.
+   * Walks from square {@code square} in direction {@code dir} and returns the
+   * first occupied square found.
    * 
-   * @param side      the color of the player doing the move.
-   * @param move      the move to validate.
-   * @return          true if the move forms a cluster, false otherwise.
+   * @param square    the index of the starting square.
+   * @param dir       the direction to walk, from 0 to 7.
+   * @return          the index of the nearest occupied square, or -1 if the
+   *                  walk leaves the board first.
    */
-  private boolean formsCluster(int side, Move move) {
-    boolean flag = true;
-    doMove(side, move);
-    if (countNeighbors(side, move.x1, move.y1) < 2) {
-      flag = false;
+  private int findNearest(int square, int dir) {
+    int x = square / SIZE + DX[dir];
+    int y = square % SIZE + DY[dir];
+    while (onBoard(x, y)) {
+      if (board[x][y] != NONE) {
+        return x * SIZE + y;
+      }
+      x += DX[dir];
+      y += DY[dir];
     }
-    undoMove(side, move);
-    return flag;
+    return -1;
   }
 
   /**
-   * Walks through every possible path between connected chips of color "side",
-   * stores the paths discovered in a list, and returns the list.  Every element
-   * in the returned list represents a valid path.
+   * Looks for a move that completes a network for a given player, without
+   * also completing one for its opponent, and returns the first one found.
+   * This detects a player who is one move from a network.
    * <p>
-   * <b>Note:</b> a "network" is not treated specially by this method.  Use the
-   * {@code hasNetwork} method to determine whether any of the paths is a
-   * network.
+   * No move is made unless it is found to complete a network.  A network
+   * needs NETWORK_LENGTH chips and a chip in each goal, so most moves are
+   * rejected by counting.  Any network a move completes passes through the
+   * moved chip (a network that a step completes only by unblocking a line
+   * elsewhere is not looked for), so for each remaining move
+   * {@code networkHelper} searches for such a network on the board as it
+   * would be after the move, using the {@code nearest} table and
+   * allocating nothing.  That search is exact for an add move, which cannot
+   * complete a network for the opponent.  A step move it accepts is made and
+   * confirmed with {@code hasNetwork}, since vacating a square can also
+   * complete the opponent's network.
    * 
-   * @param side      the color of the player whose paths are sought.
-   * @return          a list of {@code List} objects with {@code Chip} elements
-   *                  in the order they are connected in to form a path.  The
-   *                  returned list contains every valid path discovered.
-   */
-  List getAllPaths(int side) {
-    List paths = genEmptyList();
-    List chips = listChips(side); 
-    for (Object o : chips) {
-      List curPath = genEmptyList();
-      curPath.insertBack(o);
-      List newPaths = getAllPathsHelper(curPath, Direction.NA);
-      for (Object list : newPaths) {
-        paths.insertBack(list);
-      }
+   * @param side      the color of the player.  Must be BLACK or WHITE.
+   * @param moves     a buffer for move generation.  Its length must be at
+   *                  least MAX_MOVES; its contents are overwritten.
+   * @return          an encoded move completing a network for {@code side},
+   *                  or NO_MOVE if none is found.
+   */
+  int findNetworkMove(int side, int[] moves) {
+    int index = colorIndex(side);
+    int[] goals = goalChips[index];
+    if (Math.min(chipCount[index] + 1, MAX_CHIPS) < NETWORK_LENGTH ||
+        goals[0] + goals[1] == 0) {
+      return NO_MOVE;
     }
-    return paths;
-  }
-
-  /**
-   * Serves as an internal helper method for the {@code getAllPaths} method.
-   * Given a path and the final direction the path took, it looks for any
-   * available chips connected to the last chip in the path so far, provided 
-   * the path would change directions but not turn back on itself.  Then the
-   * method recursively checks the path generated by adding each connected chip
-   * to the given list, and the process repeats until there are no more
-   * connected chips to add. All discovered paths are returned in a list.
-   * 
-   * @param pathSoFar       the path between connected chips to extend if 
-   *                        possible.
-   * @param lastDir         the direction the path took from the penultimate
-   *                        chip to the last chip in the path so far.
-   * @return                a list of every known path extending the given path.
-   */
-  private List getAllPathsHelper(List pathSoFar, Direction lastDir) {
-    List paths = genEmptyList();
-    int curPathLength = pathSoFar.length();
-    Chip back = new Chip();
-    try {
-      back = (Chip)pathSoFar.back().item();
-    } catch (InvalidNodeException ine) {
-      // return empty list of paths
-      System.err.println("getAllPathsHelper() received corrupted path list");
-      ine.printStackTrace();
-      return paths;
-    }
-    int x = back.x;
-    int y = back.y;
-    int side = back.side;
-    List chips = listChips(side); 
-    // no chance of continuing path, all chips already used
-    if (chips.length() == curPathLength) {
-      return paths;
-    }
-    // check the 8 directions for connecting chips
-    Chip[] cons = getConnectedChips(side, x, y);
-    // keep track of directions
-    int index = 0;
-    // see if each c in cons is already in the path, if not add it
-    for (Chip c : cons) {
-      Direction curDir = Direction.values()[index];
-      if (c != null && curDir != lastDir &&
-          curDir != oppDirection(lastDir)) {
-        // assume chip has not already been used earlier in the pathSoFar
-        boolean alreadyUsed = false;
-        List newPath = genEmptyList();
-        // clone the path so far
-        for (Object o : pathSoFar) {
-          newPath.insertBack(o);
-          if (c.equals(o)) {
-            alreadyUsed = true;
-          }
+    int n = generateMoves(side, moves);
+    for (int i = 0; i < n; i++) {
+      int move = moves[i];
+      int to = moveTo(move);
+      int from = isStep(move) ? moveFrom(move) : -1;
+      // both goals must be occupied once the move is made
+      int goal0 = goals[0];
+      int goal1 = goals[1];
+      int toGoal = goalIndex(side, to);
+      int fromGoal = from < 0 ? -1 : goalIndex(side, from);
+      goal0 += (toGoal == 0 ? 1 : 0) - (fromGoal == 0 ? 1 : 0);
+      goal1 += (toGoal == 1 ? 1 : 0) - (fromGoal == 1 ? 1 : 0);
+      if (goal0 == 0 || goal1 == 0 || countConnections(side, to / SIZE,
+          to % SIZE) < (toGoal >= 0 ? 1 : 2)) {
+        continue;
+      }
+      boolean found = false;
+      for (int start = 0; start < SIZE && !found; start++) {
+        int sq = side == BLACK ? start * SIZE : start;
+        if (sq != from && (sq == to || board[sq / SIZE][sq % SIZE] == side)) {
+          found = networkHelper(side, sq, -1, 1L << sq, 1, sq == to, from,
+              to);
         }
-        if (!alreadyUsed) {
-          newPath.insertBack(c);
-          paths.insertBack(newPath);
-          List newPaths = getAllPathsHelper(newPath,
-              Direction.values()[index]);
-          for (Object o : newPaths) {
-            paths.insertBack(o);
-          }
+      }
+      if (found && from < 0) {
+        return move;
+      } else if (found) {
+        doMove(side, move);
+        boolean wins = hasNetwork(side) && !hasNetwork(oppColor(side));
+        undoMove(side, move);
+        if (wins) {
+          return move;
         }
       }
-      index++;
     }
-    return paths;
+    return NO_MOVE;
   }
 
   /**
-   * Searches for every possible valid move for the player of the given color
-   * and returns them all in a list.
+   * Determines whether a move by a given player will cause more than two of 
+   * the same-colored chips to be touching on the board.  The board is not
+   * modified; the chip on square {@code from}, if any, is treated as already
+   * gone.  This method is only to be called by {@code isLegal} after all
+   * other validity checks have completed with success.
    * 
-   * @param side        the color of the player for whom the list of moves is
-   *                    sought.
-   * @return            a list of {@code Move} objects representing every valid
-   *                    move from the current board for player {@code side}.
+   * @param side      the color of the player doing the move.
+   * @param from      the square a stepping chip leaves, or -1 for an add
+   *                  move.
+   * @param to        the empty square the chip lands on.
+   * @return          true if the move forms a cluster, false otherwise.
    */
-  List getAllValidMoves(int side) {
-    List moveList = genEmptyList();
-    // get all valid add moves
-    if (getNumChips(side) < MAX_CHIPS) {
-      for (int x = 0; x < SIZE; x++) {
-        for (int y = 0; y < SIZE; y++) {
-          Move move = new Move(x, y);
-          if (isValidMove(side, move)) {
-            moveList.insertBack(move);
-          }
-        }
-      }
-    } else {
-      // get all valid step moves
-      List chips = listChips(side); 
-      for (Object o : chips) {
-        int xx = ((Chip)o).x;
-        int yy = ((Chip)o).y;
-        for (int x = 0; x < SIZE; x++) {
-          for (int y = 0; y < SIZE; y++) {
-            Move move = new Move(x, y, xx, yy);
-            if (isValidMove(side, move)) {
-              moveList.insertBack(move);
-            }
-          }
-        }
+  private boolean formsCluster(int side, int from, int to) {
+    int[] adj = adjacent[colorIndex(side)];
+    int neighbors = adj[to] - (isAdjacent(from, to) ? 1 : 0);
+    if (neighbors == 0) {
+      return false;
+    }
+    if (neighbors >= 2) {
+      return true;
+    }
+    // a single neighbor forms a cluster only if it already has a neighbor of
+    // its own
+    int x = to / SIZE;
+    int y = to % SIZE;
+    for (int d = 0; d < DX.length; d++) {
+      int xx = x + DX[d];
+      int yy = y + DY[d];
+      int n = xx * SIZE + yy;
+      if (onBoard(xx, yy) && board[xx][yy] == side && n != from) {
+        return adj[n] - (isAdjacent(from, n) ? 1 : 0) > 0;
       }
     }
-    return moveList;
+    return false;
   }
 
   /**
-   * Takes a location and a color as parameters and looks in each of the eight
-   * directions for a chip of the same color.  If found, the chip is added to
-   * an array.  If the search in a certain direction passes the edge of the
-   * board or finds a chip of the opposite color first, no chip is added for
-   * that direction.  After each direction has been checked the array is 
-   * returned.  The order of the directions is as follows: left, up-left, up, 
-   * up-right, right, down-right, down, down-left.
+   * Writes the encoded valid moves for the player of the given color into
+   * {@code moves}, starting at index 0, and returns how many were written.
+   * No objects are allocated.  Add moves are listed in order of the square
+   * reached; step moves in order of the square left, then the square
+   * reached.
    * 
-   * @param side      the color of the player whose chips are sought.
-   * @param x         the x-coordinate of the Chip whose connected chips are
-   *                  sought.
-   * @param y         the y-coordinate of the Chip whose connected chips are
-   *                  sought.
-   * @return          an array of {@code Chip} objects representing connected
-   *                  chips of the same color as {@code side}.  Any directions
-   *                  without a connected chip contain a null reference.
-   */
-  Chip[] getConnectedChips(int side, int x, int y) {
-    Chip[] cons = new Chip[8];
-    int index = 0;
-    for (Direction d : Direction.values()) {
-      if (d != Direction.NA) {
-        for (int i = 1; i < SIZE; i++) {
-          Chip c = getInDirection(d, i, x, y);
-          // if c is off the board or opposite color, no connected chip
-          // in this direction
-          if (c.x == -1 || c.side == oppColor(side)) {
-            break;
-          }
-          // if c is of the same color, connected chip in this direction
-          else if (c.side == side) {
-            cons[index] = c;
-            break;
+   * @param side        the color of the player whose moves are sought.
+   * @param moves       the buffer to fill.  Its length must be at least
+   *                    MAX_MOVES.
+   * @return            the number of valid moves written.
+   */
+  int generateMoves(int side, int[] moves) {
+    int n = 0;
+    if (getNumChips(side) < MAX_CHIPS) {
+      for (int to = 0; to < SIZE * SIZE; to++) {
+        if (isLegal(side, -1, to)) {
+          moves[n++] = addMove(to);
+        }
+      }
+    } else {
+      for (int from = 0; from < SIZE * SIZE; from++) {
+        if (board[from / SIZE][from % SIZE] == side) {
+          for (int to = 0; to < SIZE * SIZE; to++) {
+            if (isLegal(side, from, to)) {
+              moves[n++] = stepMove(from, to);
+            }
           }
-          // c is an empty square, keep looking
         }
-        index++;
-      } 
+      }
     }
-    return cons;
-  }
-
-  /**
-   * Returns the chip located "distance" squares away from square (x,y) in 
-   * direction {@code dir}.  If the location of the returned chip is outside of
-   * the boundaries of the game board, an invalid chip is returned.  This
-   * method returns a chip of color NONE if the square is empty.
-   * <p>
-   * <b>Note:</b>  If {@code dir} is Direction.NA or distance is non-positive,
-   * the chip returned is the one at (x,y).
-   * 
-   * @param dir     the direction away from square (x,y).
-   * @param         distance the number of squares away from square (x,y).
-   * @param x       the x-coordinate of the original square.
-   * @param y       the y-coordinate of the original square.
-   * @return        a Chip object that represents the square located distance
-   *                squares away from (x,y) in direction {@code dir}.  If no
-   *                such location exists, returns an invalid {@code Chip}.  If
-   *                the location exists but is empty, returns a chip with color
-   *                NONE.
-   */
-  private Chip getInDirection(Direction dir, int distance, int x, int y) {
-    if (distance < 0) {
-      distance = 0;
-    }
-    int xShift = 0, yShift = 0;
-    switch (dir) {
-      case L:
-        xShift = -1;
-        break;
-      case UL:
-        xShift = -1;
-        yShift = -1;
-        break;
-      case U:
-        yShift = -1;
-        break;
-      case UR:
-        xShift = 1;
-        yShift = -1;
-        break;
-      case R:
-        xShift = 1;
-        break;
-      case DR:
-        xShift = 1;
-        yShift = 1;
-        break;
-      case D:
-        yShift = 1;
-        break;
-      case DL:
-        xShift = -1;
-        yShift = 1;
-        break;
-      default:
-        xShift = 0;
-        yShift = 0;
-        break;
-    }
-    int newXPos = x + xShift * distance;
-    int newYPos = y + yShift * distance;
-    if (!onBoard(newXPos, newYPos)) {
-      // return invalid chip
-      return new Chip();
-    }
-    // may return a chip with color NONE if square is empty
-    return new Chip(newXPos, newYPos, board[newXPos][newYPos]); 
+    return n;
   }
 
   /**
@@ -505,7 +762,10 @@ public class Board {
    *                  {@code side} is neither BLACK nor WHITE, returns 0.
    */
   int getNumChips(int side) {
-    return listChips(side).length();
+    if (side == NONE) {
+      return 0;
+    }
+    return chipCount[colorIndex(side)];
   }
 
   /**
@@ -514,32 +774,38 @@ public class Board {
    * (45 degrees), horizontally, or vertically, and only if there is no
    * intervening chip of the opposite color between them.
    * 
+   * <p>
+   * The count is maintained incrementally, so this method runs in constant
+   * time.
+   * 
    * @param side      the color of the player whose connections are sought.
    * @return          the total number of connections between pairs of chips
    *                  for the given player.
    */
   int getNumConnections(int side) {
-    int numConnections = 0;
-    for (Object o : listChips(side)) {
-      Chip c = (Chip)o;
-
-      Chip[] cons = getConnectedChips(side, c.x, c.y);
-      for (Chip con : cons) {
-        if (con != null) {
-          numConnections++;
-        }
-      }
+    return connections[colorIndex(side)];
+  }
+
+  /**
+   * Returns which of a player's goals a square is in.
+   * 
+   * @param side      the color of the player.  Must be BLACK or WHITE.
+   * @param square    the index of the square.
+   * @return          0 for the top (BLACK) or left (WHITE) goal, 1 for the
+   *                  opposite goal, or -1 if the square is in neither.
+   */
+  private int goalIndex(int side, int square) {
+    int coord = side == BLACK ? square % SIZE : square / SIZE;
+    if (coord == 0) {
+      return 0;
     }
-    // divide by two because each connection was counted twice
-    return numConnections / 2;
+    return coord == SIZE - 1 ? 1 : -1;
   }
 
   /**
-   * Scans every known path between the chips of a given player
-   * for the necessary conditions of forming a "network" and returns whether
-   * the player has a network.  It also counts all the discovered
-   * networks.  If the player is BLACK, it updates {@code blackNets},
-   * otherwise it updates {@code whiteNets}.
+   * Searches the paths between the chips of a given player for one that
+   * meets the conditions of a "network" and returns whether the player has a
+   * network.
    * <p>
    * Network conditions:
    * <ol>
@@ -549,101 +815,35 @@ public class Board {
    *    <li>Only the first and last chips are in the player's goals.</li>
    *    <li>The first chip and last chip must be in opposite goals.</li>
    * </ol>
+   * The search stops at the first network found.
    * 
    * @param side      the color of the player to search for a network for.
    *                  Must be BLACK or WHITE.
    * @return          true if the player has a network, false otherwise.
    */
   public boolean hasNetwork(int side) {
-    List paths = getAllPaths(side);
-    int countNetworks = 0;
-    for (Object o : paths) {
-      List curPath = (List)o;
-      if (curPath.length() >= NETWORK_LENGTH) {
-        try {
-          Chip first = (Chip)curPath.front().item();
-          boolean firstChipInGoal = side == BLACK ? 
-              (first.y == 0) : (first.x == 0);
-              if (firstChipInGoal && hasNetworkHelper(side, curPath)) {
-                countNetworks++;
-              }
-        } catch (InvalidNodeException ine) {
-          System.err.println("hasNetwork() received corrupted path list");
-          ine.printStackTrace();
-        }
-      }
-    }
-    // updates the number of networks
-    if (side == BLACK) {
-      blackNets = countNetworks;
-    } else {
-      whiteNets = countNetworks;
-    }
-
-    return countNetworks > 0;
-  }
-
-  /**
-   * Serves as an internal helper method for {@code hasNetwork}.  It checks 
-   * "network" conditions 2, 3, and 4, and returns whether a given path is a
-   * network.
-   * 
-   * @param side      the color of the player whose path is to be checked.
-   * @param path      the path with minimum length 6 chips to check if it is a
-   *                  network.
-   * @return          true if the given path is a network, false otherwise.
-   */
-  private boolean hasNetworkHelper(int side, List path) {
-    try {
-      Chip front = (Chip)path.front().item();
-      Chip back = (Chip)path.back().item();
-      int index = 0;
-      if (isInGoal(side, front.x, front.y) && isInGoal(side, back.x, back.y)) {
-        if (inSameGoal(side, front.x, front.y, back.x, back.y)) {
-          return false;
-        }
-        for (Object o : path) {
-          // skip first chip, which is in a goal
-          if (index != 0) {
-            Chip cur = (Chip)o;
-            int x = cur.x;
-            int y = cur.y;
-            // if any other chip is in a goal too early in the path, not a
-            // network
-            if (index < path.length() - 1 && isInGoal(side, x, y)) {
-              return false;
-            }
-          }
-          index++;
-        }
-        return true;
-      }
-    } catch (InvalidNodeException ine) {
-      System.err.println("hasNetworkHelper() received corrupted path list");
-      ine.printStackTrace();
+    // a network needs enough chips and a chip in each goal
+    int[] goals = goalChips[colorIndex(side)];
+    if (getNumChips(side) < NETWORK_LENGTH || goals[0] == 0 || goals[1] == 0) {
+      return false;
     }
-    return false;
+    return countNetworks(side, false) > 0;
   }
 
   /**
-   * Returns whether two chips in a player's goals are both in the same goal.
-   * <p>
-   * <b>Note:</b> it is assumed that the two chips are each in a goal.
+   * Returns whether two squares touch horizontally, vertically, or
+   * diagonally.
    * 
-   * @param side      the color of the player whose chips and goals are to be
-   *                  considered.
-   * @param x1        the x-coordinate of the first chip.
-   * @param y1        the y-coordinate of the first chip.
-   * @param x2        the x-coordinate of the second chip.
-   * @param y2        the y-coordinate of the second chip.
-   * @return          true if the chips are in the same goal, false otherwise.
+   * @param a       the index of the first square, or -1.
+   * @param b       the index of the second square.
+   * @return        true if both squares are on the board and adjacent.
    */
-  private boolean inSameGoal(int side, int x1, int y1, int x2, int y2) {
-    if (side == BLACK) {
-      return y1 == y2;
-    } else {
-      return x1 == x2;
+  private boolean isAdjacent(int a, int b) {
+    if (a < 0 || a == b) {
+      return false;
     }
+    return Math.abs(a / SIZE - b / SIZE) <= 1 &&
+        Math.abs(a % SIZE - b % SIZE) <= 1;
   }
 
   /**
@@ -656,7 +856,7 @@ public class Board {
    * @return          true if the square is in one of the given player's goal,
    *                  false otherwise.
    */
-  private boolean isInGoal(int side, int x, int y) {
+  boolean isInGoal(int side, int x, int y) {
     if (side == BLACK) {
       return y == 0 || y == SIZE - 1; 
     } else {
@@ -664,6 +864,54 @@ public class Board {
     }
   }
 
+  /**
+   * Returns whether a player may move a chip from square {@code from} (or add
+   * one, if {@code from} is -1) to square {@code to}.  Both squares must be
+   * on the board.  The board is not modified.
+   * 
+   * @param side      the color of the player.  Must be BLACK or WHITE.
+   * @param from      the square a stepping chip leaves, or -1 for an add
+   *                  move.
+   * @param to        the square the chip lands on.
+   * @return          true if the move is valid, false otherwise.
+   */
+  private boolean isLegal(int side, int from, int to) {
+    int x = to / SIZE;
+    int y = to % SIZE;
+    // no chip in a corner or in the opposite color's goal, and the
+    // destination must be empty (so a chip cannot step in place)
+    if (isInGoal(oppColor(side), x, y) || board[x][y] != NONE) {
+      return false;
+    }
+    // add moves only below MAX_CHIPS, step moves only at MAX_CHIPS, and only
+    // a chip of the right color can step
+    if (from < 0) {
+      if (getNumChips(side) >= MAX_CHIPS) {
+        return false;
+      }
+    } else if (getNumChips(side) < MAX_CHIPS ||
+        board[from / SIZE][from % SIZE] != side) {
+      return false;
+    }
+    // adding the new chip can never make a cluster larger than 2
+    return !formsCluster(side, from, to);
+  }
+
+  /**
+   * Returns whether adding a chip of the given color to square {@code to}
+   * would be valid if the player had fewer than MAX_CHIPS chips.
+   * 
+   * @param side      the color of the player.  Must be BLACK or WHITE.
+   * @param to        the index of the square.
+   * @return          true if the add would be valid, false otherwise.
+   */
+  private boolean isValidAdd(int side, int to) {
+    int x = to / SIZE;
+    int y = to % SIZE;
+    return board[x][y] == NONE && !isInGoal(oppColor(side), x, y) &&
+        !formsCluster(side, -1, to);
+  }
+
   /**
    * Considers a potential move (either a step move or an add move) for a given
    * player and returns whether it is valid given the current game board 
@@ -690,89 +938,148 @@ public class Board {
       return false;
     }
 
-    // move cannot place chip in either a corner or the opposite
-    // color's goal
-    if (isInGoal(oppColor(side), move.x1, move.y1)) {
-      return false;
-    }
-
-    if (move.moveKind == Move.STEP) {
-      // no piece of correct color at original location
-      if (board[move.x2][move.y2] != side) {
-        return false;
-      }
-    }
-
-    // terminal location already occupied (also prevents moving
-    // chip to its current location)
-    if (board[move.x1][move.y1] != NONE) {
-      return false;
-    }
-
-    // can only add chips when there are less than 10 of given color
-    if (getNumChips(side) >= MAX_CHIPS && move.moveKind == Move.ADD) {
-      return false;
-    }
-
-    // can only step chips where there are at least 10 of given color
-    if (getNumChips(side) < MAX_CHIPS && move.moveKind == Move.STEP) {
-      return false;
-    }
-
     // there should never be more black chips than white chips on board
     // this check was removed to improve the evaluation function in Engine 
     /*if (bChips.length() > wChips.length()) {
       return false;
     }*/
 
-    // adding the new chip can never make a cluster larger than 2
-    if (formsCluster(side, move)) {
+    int from = -1;
+    if (move.moveKind == Move.STEP) {
+      from = move.x2 * SIZE + move.y2;
+    } else if (move.moveKind != Move.ADD) {
       return false;
     }
-
-    return true;
+    return isLegal(side, from, move.x1 * SIZE + move.y1);
   }
 
   /**
-   * Returns a list of all the chips a given player currently has on this board.
+   * Returns whether an encoded move is valid for a given player on the
+   * current board.  Unlike {@code generateMoves}, this accepts any int, so it
+   * can vet moves from untrusted sources such as a position book.
    * 
-   * @param side      the color of the player whose chips are to be listed.
-   * @return          a list containing a {@code Chip} for each square taken
-   *                  by the given player.
+   * @param side      the color of the player.  Must be BLACK or WHITE.
+   * @param move      the encoded move.
+   * @return          true if the move is valid, false otherwise.
    */
-  private List listChips(int side) {
-    List chips = genEmptyList();
-    if (side != NONE) {
-      chips = (side == BLACK ? bChips : wChips);
+  boolean isValidMove(int side, int move) {
+    if (move < 0 || move >= STEP_FLAG << 1) {
+      return false;
     }
-    return chips;
+    return isLegal(side, isStep(move) ? moveFrom(move) : -1, moveTo(move));
   }
 
   /**
-   * Searches through a list of paths between chips and returns the length of
-   * the longest path found.  This method should ideally be called with a list 
-   * generated by {@code getAllPaths} as its parameter.
+   * Returns the length, in number of chips, of the longest path between
+   * connected chips of a given player.  Paths follow the rules of
+   * {@code hasNetwork}: no chip is used twice and no two consecutive
+   * segments are parallel.  A lone chip is not a path, so the result is 0 if
+   * the player has no connections.
+   * <p>
+   * The result is cached and only recomputed after the player's connections
+   * change.  The search walks the {@code nearest} table in place and
+   * allocates nothing.
    * <p>
    * <b>Note:</b> this method does not stringently check paths with conditions
    * in the manner that {@code hasNetwork} does.  Some paths would not qualify
    * as valid networks but are still included in the search; therefore this is
    * a somewhat "dumb" statistic, but still useful as a general indicator.
    * 
-   * @param paths     a list whose elements are {@code List}s containing 
-   *                  {@code Chip}s representing connected paths assumed to be
-   *                  for a single player.
-   * @return          the length, in the number of chips, of the longest path
-   *                  found.
-   */
-  int longestPathLength(List paths) {
-    int length = 0;
-    for (Object o : paths) {
-      int curLength = ((List)o).length();
-      if (curLength > length) {
-        length = curLength;
+   * @param side      the color of the player whose paths are measured.
+   * @return          the length of the longest path found.
+   */
+  int longestPath(int side) {
+    int index = colorIndex(side);
+    if (pathsDirty[index]) {
+      int longest = 0;
+      int numChips = getNumChips(side);
+      for (int sq = 0; sq < SIZE * SIZE && longest < numChips; sq++) {
+        if (board[sq / SIZE][sq % SIZE] == side) {
+          longest = Math.max(longest,
+              longestPathHelper(side, sq, -1, 1L << sq, 1, numChips));
+        }
+      }
+      longestPaths[index] = longest > 1 ? longest : 0;
+      pathsDirty[index] = false;
+    }
+    return longestPaths[index];
+  }
+
+  /**
+   * Serves as an internal helper method for {@code longestPath}.  Extends a
+   * path ending on square {@code square} by every connected, unused chip of
+   * the same color and returns the length of the longest extension.
+   * 
+   * @param side        the color of the chips in the path.
+   * @param square      the index of the square of the last chip in the path.
+   * @param lastDir     the direction of the last segment, or -1 if the path
+   *                    has a single chip.
+   * @param used        a bit set of the squares of the chips in the path.
+   * @param length      the number of chips in the path.
+   * @param numChips    the number of chips the player has; no path is
+   *                    longer.
+   * @return            the length of the longest path extending this one.
+   */
+  private int longestPathHelper(int side, int square, int lastDir, long used,
+      int length, int numChips) {
+    int longest = length;
+    for (int d = 0; d < DX.length && longest < numChips; d++) {
+      if (lastDir >= 0 && (d == lastDir || d == (lastDir + 4) % DX.length)) {
+        continue;
+      }
+      int next = nearest[square * DX.length + d];
+      if (next >= 0 && board[next / SIZE][next % SIZE] == side &&
+          (used & (1L << next)) == 0) {
+        longest = Math.max(longest, longestPathHelper(side, next, d,
+            used | (1L << next), length + 1, numChips));
+      }
+    }
+    return longest;
+  }
+
+  /**
+   * Serves as an internal helper method for {@code findNetworkMove}.
+   * Extends a path that starts in the player's first goal, on the board as
+   * it would be after a move from {@code from} to {@code to}, and returns
+   * whether some extension is a network that includes the moved chip.
+   * 
+   * @param side          the color of the chips in the path.
+   * @param square        the index of the square of the last chip in the
+   *                      path.
+   * @param lastDir       the direction of the last segment, or -1 if the
+   *                      path has a single chip.
+   * @param used          a bit set of the squares of the chips in the path.
+   * @param length        the number of chips in the path.
+   * @param includesTo    whether the path includes the moved chip.
+   * @param from          the square the moved chip leaves, or -1 for an add
+   *                      move.
+   * @param to            the square the moved chip lands on.
+   * @return              true if the path extends to a network through the
+   *                      moved chip, false otherwise.
+   */
+  private boolean networkHelper(int side, int square, int lastDir, long used,
+      int length, boolean includesTo, int from, int to) {
+    for (int d = 0; d < DX.length; d++) {
+      if (lastDir >= 0 && (d == lastDir || d == (lastDir + 4) % DX.length)) {
+        continue;
+      }
+      int next = virtualNearest(square, d, from, to);
+      if (next < 0 || (used & (1L << next)) != 0 ||
+          (next != to && board[next / SIZE][next % SIZE] != side)) {
+        continue;
+      }
+      int goal = goalIndex(side, next);
+      if (goal == 1) {
+        // a network ends at the first chip in the opposite goal
+        if (length + 1 >= NETWORK_LENGTH && (includesTo || next == to)) {
+          return true;
+        }
+      } else if (goal < 0 && networkHelper(side, next, d, used | (1L << next),
+          length + 1, includesTo || next == to, from, to)) {
+        return true;
       }
     }
-    return length;
+    return false;
   }
 
   /**
@@ -787,6 +1094,118 @@ public class Board {
     return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
   }
 
+  /**
+   * Returns a 64-bit hash of the current board configuration with the given
+   * player to move.  Equal positions always produce equal keys; distinct
+   * positions collide only with negligible probability.
+   * 
+   * @param side      the color of the player to move.  Must be BLACK or
+   *                  WHITE.
+   * @return          the Zobrist key of the position.
+   */
+  long positionKey(int side) {
+    return side == WHITE ? hash ^ WHITE_TO_MOVE : hash;
+  }
+
+  /**
+   * Unlinks the chip on square {@code square}, which is about to be removed,
+   * from the {@code nearest} table and updates the connection counts: the
+   * chip's connections disappear and the chips on either side of it along
+   * each line may become connected to each other.
+   * 
+   * @param square    the index of the square being emptied.
+   * @param side      the color of the chip being removed.
+   */
+  private void removeLinks(int square, int side) {
+    for (int d = 0; d < DX.length / 2; d++) {
+      int opp = d + DX.length / 2;
+      int a = nearest[square * DX.length + d];
+      int b = nearest[square * DX.length + opp];
+      if (a >= 0) {
+        nearest[a * DX.length + opp] = b;
+      }
+      if (b >= 0) {
+        nearest[b * DX.length + d] = a;
+      }
+      toggleConnections(a, b, side, 1);
+    }
+    pathsDirty[colorIndex(side)] = true;
+  }
+
+  /**
+   * Changes this board to hold a given position.  Only the squares that
+   * differ are changed, so setting up a position close to the current one is
+   * cheap.
+   *
+   * @param position    the position to set up.
+   */
+  public void setPosition(Position position) {
+    // empty squares first, so that no player briefly has too many chips
+    for (int i = 0; i < 2; i++) {
+      int side = i == 0 ? BLACK : WHITE;
+      long extra = chips[i] & ~position.getChips(side);
+      for (; extra != 0; extra &= extra - 1) {
+        setSquare(Long.numberOfTrailingZeros(extra), NONE, side);
+      }
+    }
+    for (int i = 0; i < 2; i++) {
+      int side = i == 0 ? BLACK : WHITE;
+      long missing = position.getChips(side) & ~chips[i];
+      for (; missing != 0; missing &= missing - 1) {
+        setSquare(Long.numberOfTrailingZeros(missing), side, side);
+      }
+    }
+  }
+
+  /**
+   * Puts a chip of color {@code value} (or NONE to empty it) on square
+   * {@code square}, keeping the position hash and every incrementally
+   * maintained count up to date.  This is the only method that changes the
+   * contents of a square.
+   * 
+   * @param square    the index of the square to change.
+   * @param value     the new content of the square: BLACK, WHITE, or NONE.
+   * @param side      the color of the chip being placed or removed.
+   */
+  private void setSquare(int square, int value, int side) {
+    int x = square / SIZE;
+    int y = square % SIZE;
+    int index = colorIndex(side);
+    int change = value == NONE ? -1 : 1;
+    updateValidAdds(square, side, -1);
+    if (value == NONE) {
+      removeLinks(square, side);
+      board[x][y] = NONE;
+    } else {
+      board[x][y] = value;
+      addLinks(square, side);
+    }
+    for (int d = 0; d < DX.length; d++) {
+      if (onBoard(x + DX[d], y + DY[d])) {
+        adjacent[index][(x + DX[d]) * SIZE + y + DY[d]] += change;
+      }
+    }
+    chipCount[index] += change;
+    chips[index] ^= 1L << square;
+    if (isInGoal(side, x, y)) {
+      int goal = (side == BLACK ? y : x) == 0 ? 0 : 1;
+      goalChips[index][goal] += change;
+    }
+    hash ^= zobristKey(side, x, y);
+    updateValidAdds(square, side, 1);
+  }
+
+  /**
+   * Returns the position on this board as an immutable value, which may be
+   * kept, compared, hashed, or handed to another thread while this board
+   * goes on changing.
+   *
+   * @return      the current position.
+   */
+  public Position snapshot() {
+    return new Position(chips[colorIndex(BLACK)], chips[colorIndex(WHITE)]);
+  }
+
   /**
    * Returns a string representation of the current game board. A BLACK square
    * is marked "B", a WHITE square is marked "W", and an empty square is marked
@@ -817,9 +1236,36 @@ public class Board {
     return s.toString();
   }
 
+  /**
+   * Updates the connection counts for a chip of color {@code side} appearing
+   * or disappearing between squares {@code a} and {@code b}, which lie on
+   * opposite sides of it along one line.
+   * 
+   * @param a         the nearest occupied square on one side, or -1.
+   * @param b         the nearest occupied square on the other side, or -1.
+   * @param side      the color of the chip between them.
+   * @param sign      1 if the chip is disappearing, -1 if it is appearing.
+   */
+  private void toggleConnections(int a, int b, int side, int sign) {
+    int aSide = a >= 0 ? board[a / SIZE][a % SIZE] : NONE;
+    int bSide = b >= 0 ? board[b / SIZE][b % SIZE] : NONE;
+    // a and b see each other exactly when the chip is absent
+    if (aSide != NONE && aSide == bSide) {
+      connections[colorIndex(aSide)] += sign;
+      pathsDirty[colorIndex(aSide)] = true;
+    }
+    // the chip connects to a and b when they share its color
+    if (aSide == side) {
+      connections[colorIndex(side)] -= sign;
+    }
+    if (bSide == side) {
+      connections[colorIndex(side)] -= sign;
+    }
+  }
+
   /**
    * Returns the total number of networks for a given player on the current 
-   * game board.
+   * game board.  Unlike {@code hasNetwork}, this searches every path.
    * 
    * @param side      the color of the player whose total networks is sought.
    *                  Must be BLACK or WHITE.
@@ -827,7 +1273,11 @@ public class Board {
    *                  player.
    */
   int totalNetworks(int side) {
-    return side == BLACK ? blackNets : whiteNets;
+    int[] goals = goalChips[colorIndex(side)];
+    if (getNumChips(side) < NETWORK_LENGTH || goals[0] == 0 || goals[1] == 0) {
+      return 0;
+    }
+    return countNetworks(side, true);
   }
 
   /**
@@ -842,45 +1292,91 @@ public class Board {
    * @param move        the move to undo.  Must be an add or a step move.
    */
   void undoMove(int side, Move move) {
-    if (move.moveKind == Move.STEP) {
-      Move reverse = new Move(move.x2, move.y2, move.x1, move.y1);
-      doMove(side, reverse);
-    } else {
-      board[move.x1][move.y1] = NONE;
-      updateChips(side);
-    }
+    undoMove(side, encodeMove(move));
   }
 
   /**
-   * Scans the game board array and updates the correct list of chips for a 
-   * given player.
-   * <p>
-   * <b>Note:</b> as the main purpose of this method is to update the correct
-   * chip list, returning the list is simply a courtesy.
+   * Reverses a previously executed encoded move, as for
+   * {@code undoMove(int, Move)}.
    * 
-   * @param side      the color of the player whose chips are to be updated.
-   * @return          {@code bChips} if the player is BLACK, {@code wChips}
-   *                  otherwise.  Whichever list is returned will have been
-   *                  updated first.
+   * @param side        the color of the player who made the move.  Must be 
+   *                    BLACK or WHITE.
+   * @param move        the encoded move to undo.
    */
-  private List updateChips(int side) {
-    List chips = genEmptyList();
-    if (side == NONE) {
-      return chips;
+  void undoMove(int side, int move) {
+    setSquare(moveTo(move), NONE, side);
+    if (isStep(move)) {
+      setSquare(moveFrom(move), side, side);
     }
-    for (int x = 0; x < SIZE; x++) {
-      for (int y = 0; y < SIZE; y++) {
-        if (board[x][y] == side) {
-          chips.insertBack(new Chip(x, y, side));
+  }
+
+  /**
+   * Adds (or subtracts) the validity of the add moves that a change to square
+   * {@code square} can affect to (or from) {@code validAdds}.  Called with
+   * -1 before the change and 1 after it.  Only squares within two of the
+   * changed square can change validity for the chip's owner; for the other
+   * player only the changed square itself can.
+   * 
+   * @param square    the index of the square being changed.
+   * @param side      the color of the chip being placed or removed.
+   * @param sign      -1 before the change, 1 after it.
+   */
+  private void updateValidAdds(int square, int side, int sign) {
+    int x = square / SIZE;
+    int y = square % SIZE;
+    int index = colorIndex(side);
+    for (int xx = Math.max(0, x - 2); xx <= Math.min(SIZE - 1, x + 2); xx++) {
+      for (int yy = Math.max(0, y - 2); yy <= Math.min(SIZE - 1, y + 2); yy++) {
+        if (isValidAdd(side, xx * SIZE + yy)) {
+          validAdds[index] += sign;
         }
       }
     }
+    int opp = oppColor(side);
+    if (isValidAdd(opp, square)) {
+      validAdds[colorIndex(opp)] += sign;
+    }
+  }
 
-    if (side == BLACK) {
-      bChips = chips;
+  /**
+   * Returns the nearest occupied square in direction {@code dir} from square
+   * {@code square} on the board as it would be after a move from
+   * {@code from} to {@code to}, without making the move.
+   * 
+   * @param square    the index of an occupied square, or of {@code to}.
+   * @param dir       the direction to look, from 0 to 7.
+   * @param from      the square the moved chip leaves, or -1 for an add
+   *                  move.
+   * @param to        the square the moved chip lands on.
+   * @return          the index of the nearest occupied square after the
+   *                  move, or -1 if the edge of the board comes first.
+   */
+  private int virtualNearest(int square, int dir, int from, int to) {
+    int next;
+    if (square == to) {
+      next = findNearest(to, dir);
     } else {
-      wChips = chips;
+      next = nearest[square * DX.length + dir];
+    }
+    if (next >= 0 && next == from) {
+      next = nearest[from * DX.length + dir];
+    }
+    if (square != to) {
+      // the moved chip blocks the line if it lands before next
+      int dx = to / SIZE - square / SIZE;
+      int dy = to % SIZE - square % SIZE;
+      int k = Math.max(Math.abs(dx), Math.abs(dy));
+      if (k > 0 && dx == k * DX[dir] && dy == k * DY[dir]) {
+        int nk = SIZE;
+        if (next >= 0) {
+          nk = Math.max(Math.abs(next / SIZE - square / SIZE),
+              Math.abs(next % SIZE - square % SIZE));
+        }
+        if (k < nk) {
+          next = to;
+        }
+      }
     }
-    return chips;
+    return next;
   }
-} 
+}
@@ -0,0 +1,229 @@
+/* BookGenerator.java */
+package game;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * An offline tool that builds the position books read by
+ * {@code PositionBook}.  It runs deep searches, far deeper than a
+ * {@code MachinePlayer} can afford during a game, and stores the resulting
+ * moves so that players can replay them instantly.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java game.BookGenerator openings &lt;file&gt; &lt;plies&gt; &lt;depth&gt;
+ *   java game.BookGenerator endgames &lt;file&gt; &lt;games&gt; &lt;depth&gt;
+ * </pre>
+ * The first form searches every position reachable in fewer than
+ * {@code plies} turns from the empty board, white to move first.  The second
+ * plays {@code games} games of fast self-play from random openings and
+ * searches every step-move position reached, keeping only the positions the
+ * search solves (a forced network for either side).
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class BookGenerator {
+
+  /**
+   * The search depth used to play the self-play games between the deep
+   * searches of the endgame mode.
+   */
+  private static final int PLAY_DEPTH = 2;
+
+  /**
+   * The number of random add moves each side makes at the start of an
+   * endgame self-play game, so that the games differ.
+   */
+  private static final int RANDOM_PLIES = 3;
+
+  /**
+   * The maximum number of turns of an endgame self-play game.
+   */
+  private static final int MAX_GAME_PLIES = 120;
+
+  /**
+   * Generates a book.  See the class comment for the arguments.
+   *
+   * @param args      the mode, the output file, a count, and a depth.
+   */
+  public static void main(String[] args) {
+    if (args.length != 4 ||
+        !(args[0].equals("openings") || args[0].equals("endgames"))) {
+      System.err.println("usage: java game.BookGenerator " +
+          "openings|endgames <file> <plies|games> <depth>");
+      System.exit(1);
+    }
+    int count = Integer.parseInt(args[2]);
+    int depth = Integer.parseInt(args[3]);
+    BookGenerator gen = new BookGenerator(depth);
+    long start = System.currentTimeMillis();
+    if (args[0].equals("openings")) {
+      gen.addOpenings(new Board(), Board.WHITE, count);
+    } else {
+      gen.addEndgames(count);
+    }
+    try {
+      PositionBook.write(args[1], gen.keys, gen.moves, gen.scores, gen.size);
+    } catch (IOException ioe) {
+      System.err.println("BookGenerator could not write " + args[1]);
+      ioe.printStackTrace();
+      System.exit(1);
+    }
+    System.out.println("wrote " + gen.size + " positions to " + args[1] +
+        " in " + (System.currentTimeMillis() - start) / 1000 + " s");
+  }
+
+  /**
+   * The search depth of the book moves.
+   */
+  private final int depth;
+
+  /**
+   * The keys of the positions found so far, parallel to {@code moves} and
+   * {@code scores}.
+   */
+  private long[] keys;
+
+  /**
+   * The encoded move found for each position.
+   */
+  private int[] moves;
+
+  /**
+   * The score of each position for the side to move.
+   */
+  private int[] scores;
+
+  /**
+   * The number of positions found so far.
+   */
+  private int size;
+
+  /**
+   * The keys of the positions found so far, for fast lookup.
+   */
+  private final HashSet<Long> recorded;
+
+  /**
+   * Constructor for a generator with no positions.
+   *
+   * @param depth     the search depth of the book moves.
+   */
+  private BookGenerator(int depth) {
+    this.depth = depth;
+    keys = new long[1024];
+    moves = new int[1024];
+    scores = new int[1024];
+    size = 0;
+    recorded = new HashSet<Long>();
+  }
+
+  /**
+   * Records a position, growing the arrays as needed.
+   *
+   * @param key       the position key.
+   * @param move      the encoded move to store.
+   * @param score     the score to store.
+   */
+  private void add(long key, int move, int score) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, 2 * size);
+      moves = Arrays.copyOf(moves, 2 * size);
+      scores = Arrays.copyOf(scores, 2 * size);
+    }
+    keys[size] = key;
+    moves[size] = move;
+    scores[size] = score;
+    size++;
+    recorded.add(key);
+  }
+
+  /**
+   * Plays self-play games and records every step-move position whose deep
+   * search proves a network for either side.
+   *
+   * @param games     the number of games to play.
+   */
+  private void addEndgames(int games) {
+    Random rand = new Random(games);
+    int[] buf = new int[Board.MAX_MOVES];
+    for (int g = 0; g < games; g++) {
+      Board board = new Board();
+      int color = Board.WHITE;
+      for (int ply = 0; ply < MAX_GAME_PLIES; ply++) {
+        if (board.hasNetwork(Board.WHITE) || board.hasNetwork(Board.BLACK)) {
+          break;
+        }
+        int move;
+        if (ply < 2 * RANDOM_PLIES) {
+          int n = board.generateMoves(color, buf);
+          move = buf[rand.nextInt(n)];
+        } else {
+          Engine player = new Engine(board, color, PLAY_DEPTH);
+          move = player.searchMove(PLAY_DEPTH);
+          if (board.getNumChips(color) == Board.MAX_CHIPS &&
+              !recorded.contains(board.positionKey(color))) {
+            Engine solver = new Engine(board, color, depth);
+            int best = solver.searchMove(depth);
+            int score = solver.getLastScore();
+            if (best != Board.NO_MOVE && solver.isSolved(score)) {
+              add(board.positionKey(color), best,
+                  score > 0 ? PositionBook.WIN : -PositionBook.WIN);
+              move = best;
+            }
+          }
+        }
+        if (move == Board.NO_MOVE) {
+          break;
+        }
+        board.doMove(color, move);
+        color = Board.oppColor(color);
+      }
+      System.out.println("game " + (g + 1) + "/" + games + ": " + size +
+          " solved positions");
+    }
+  }
+
+  /**
+   * Searches a position and records its best move, then recurses into every
+   * position reachable in one move, until {@code plies} turns are used up.
+   * Positions already recorded are skipped along with their subtrees, which
+   * have been covered already.
+   *
+   * @param board     the board holding the position; restored on return.
+   * @param color     the color of the player to move.
+   * @param plies     the number of turns left to cover, including this one.
+   */
+  private void addOpenings(Board board, int color, int plies) {
+    long key = board.positionKey(color);
+    if (plies == 0 || recorded.contains(key) ||
+        board.hasNetwork(Board.WHITE) || board.hasNetwork(Board.BLACK)) {
+      return;
+    }
+    Engine engine = new Engine(board, color, depth);
+    int best = engine.searchMove(depth);
+    if (best == Board.NO_MOVE) {
+      return;
+    }
+    int score = engine.getLastScore();
+    int stored = score;
+    if (engine.isSolved(score)) {
+      stored = score > 0 ? PositionBook.WIN : -PositionBook.WIN;
+    }
+    add(key, best, stored);
+    if (size % 100 == 0) {
+      System.out.println(size + " positions");
+    }
+    int[] buf = new int[Board.MAX_MOVES];
+    int n = board.generateMoves(color, buf);
+    for (int i = 0; i < n; i++) {
+      board.doMove(color, buf[i]);
+      addOpenings(board, Board.oppColor(color), plies - 1);
+      board.undoMove(color, buf[i]);
+    }
+  }
+}
@@ -1,9 +1,10 @@
 /* Engine.java */
 package game;
 
+import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.Random;
 
-import list.List;
 import player.Move;
 
 /**
@@ -26,36 +27,293 @@ public class Engine {
   private class Best {
 
     /**
-     * The current best known move.
+     * The current best known move, encoded as by {@code Board.encodeMove}.
      */
-    private Move move;
+    private int move;
     
     /**
      * The score of the best move.
      */
-    private double score;
+    private int score;
 
     /**
      * Constructor for a new best move.
      * 
-     * @param move      the current best known move.
+     * @param move      the current best known move, or Board.NO_MOVE.
      * @param score     the score of the best move.
      */
-    private Best(Move move, double score) {
+    private Best(int move, int score) {
       this.move = move;
       this.score = score;
     }
   }
 
+  /**
+   * Half the width of the aspiration window placed around the score of an
+   * earlier iteration, in evaluation units.
+   */
+  private static final int ASPIRATION_WINDOW = 150;
+
+  /**
+   * Ordering bonus for a move that lands in one of the mover's goals.
+   */
+  private static final int GOAL_BONUS = 8;
+
+  /**
+   * Ordering bonus for each connection a move gains for the mover.
+   */
+  private static final int CONNECTION_BONUS = 4;
+
+  /**
+   * Ordering score given to the killer moves of a ply.  It ranks them after
+   * the transposition table move and ahead of all history-ordered moves.
+   */
+  private static final int KILLER_SCORE = Integer.MAX_VALUE / 2;
+
+  /**
+   * A score beyond every score the search can return.
+   */
+  private static final int INFINITY = 1000001;
+
+  /**
+   * Number of killer moves remembered for each ply of the search.
+   */
+  private static final int KILLERS_PER_PLY = 2;
+
+  /**
+   * An upper bound on the ply of any position the search can reach.  Scores
+   * within MAX_PLY of NETWORK_SCORE are network scores.
+   */
+  private static final int MAX_PLY = 128;
+
+  /**
+   * The score of a position in which the player to move has a network.  A
+   * network found {@code n} turns into the search scores
+   * {@code NETWORK_SCORE - n}, so that sooner networks score higher and
+   * later losses score higher than sooner ones.  Every evaluation lies far
+   * inside this range.
+   */
+  private static final int NETWORK_SCORE = 1000000;
+
+  /**
+   * The time, in milliseconds, the step-phase solver may spend on one move
+   * before the engine falls back to its usual search.
+   */
+  private static final int SOLVER_MILLIS = 500;
+
+  /**
+   * The greatest number of nodes in a step-phase solver tree.
+   */
+  private static final int SOLVER_NODES = 1 << 18;
+
+  /**
+   * The greatest number of this engine's own moves a network found by the
+   * step-phase solver may take.
+   */
+  private static final int SOLVER_TURNS = 3;
+
+  /**
+   * The maximum number of turns the quiescence search adds beyond the
+   * nominal search depth.
+   */
+  private static final int QUIESCENCE_PLIES = 2;
+
+  /**
+   * Ordering score given to the move stored in the transposition table.
+   */
+  private static final int TT_MOVE_SCORE = Integer.MAX_VALUE;
+
+  /**
+   * Base-2 logarithm of the number of transposition table slots.
+   */
+  private static final int TT_BITS = 16;
+
+  /**
+   * Returns the history table index of the square a move leaves.
+   * 
+   * @param move    an encoded add or step move.
+   * @return        SIZE * SIZE for an add move, otherwise the index of the
+   *                square the chip steps from.
+   */
+  private static int fromIndex(int move) {
+    if (Board.isStep(move)) {
+      return Board.moveFrom(move);
+    }
+    return Board.SIZE * Board.SIZE;
+  }
+
+  /**
+   * Finds the highest-scored move among {@code moves[start..]}, swaps it (and
+   * its score) into position {@code start}, and returns it.  Selecting one
+   * move at a time is cheaper than a full sort because most nodes are cut
+   * off after the first few moves.
+   * 
+   * @param moves       the encoded candidate moves.
+   * @param scores      the ordering score of each candidate move.
+   * @param start       the index of the first move not yet searched.
+   * @param n           the number of candidate moves.
+   * @return            the best remaining move.
+   */
+  private static int selectNext(int[] moves, int[] scores, int start, int n) {
+    int best = start;
+    for (int i = start + 1; i < n; i++) {
+      if (scores[i] > scores[best]) {
+        best = i;
+      }
+    }
+    int m = moves[best];
+    moves[best] = moves[start];
+    moves[start] = m;
+    int score = scores[best];
+    scores[best] = scores[start];
+    scores[start] = score;
+    return m;
+  }
+
+  /**
+   * Converts a score stored in the transposition table back to a score
+   * relative to the root of the current search.
+   * 
+   * @param score   a score as stored by {@code toTable}.
+   * @param ply     the distance, in turns, from the root of the search.
+   * @return        the score relative to the root.
+   */
+  private static int fromTable(int score, int ply) {
+    if (score >= NETWORK_SCORE - MAX_PLY) {
+      return score - ply;
+    } else if (score <= -NETWORK_SCORE + MAX_PLY) {
+      return score + ply;
+    }
+    return score;
+  }
+
+  /**
+   * Returns the history table index of the square a move lands on.
+   * 
+   * @param move    an encoded add or step move.
+   * @return        the index of the square the chip is placed on.
+   */
+  private static int toIndex(int move) {
+    return Board.moveTo(move);
+  }
+
+  /**
+   * Converts a network score relative to the root of the current search into
+   * one relative to the position being stored, so that a later search can
+   * reuse it at a different ply.  Other scores are unchanged.
+   * 
+   * @param score   a score relative to the root.
+   * @param ply     the distance, in turns, from the root of the search.
+   * @return        the score to store in the transposition table.
+   */
+  private static int toTable(int score, int ply) {
+    if (score >= NETWORK_SCORE - MAX_PLY) {
+      return score + ply;
+    } else if (score <= -NETWORK_SCORE + MAX_PLY) {
+      return score - ply;
+    }
+    return score;
+  }
+
   /**
    * The game board.
    */
   public final Board board;
+
+  /**
+   * The depth of the last completed iteration of the most recent search, or
+   * 0 if the most recent move came from a book or the step-phase solver.
+   */
+  private int depthReached;
+
+  /**
+   * Solved endgame positions, consulted before any search.
+   */
+  private PositionBook endgames;
+
+  /**
+   * History heuristic scores indexed by [from square][to square].  The from
+   * index of an add move is SIZE * SIZE.  Moves that caused cutoffs earn
+   * points in proportion to the remaining depth.
+   */
+  private final int[][] history;
+
+  /**
+   * Killer moves indexed by [ply][slot]: moves that recently caused a cutoff
+   * at the same ply in a sibling subtree.  Empty slots hold Board.NO_MOVE.
+   */
+  private final int[][] killers;
+
+  /**
+   * Move buffers indexed by [ply][move], filled by
+   * {@code Board.generateMoves}.  Allocated once so that the search itself
+   * allocates nothing.
+   */
+  private final int[][] moveBuffers;
   
+  /**
+   * The score of the move most recently chosen by a search.
+   */
+  private int lastScore;
+
+  /**
+   * The listener told about the progress of each search, or null.
+   */
+  private SearchListener listener;
+
+  /**
+   * The total number of positions visited by all searches so far.
+   */
+  private long nodes;
+
+  /**
+   * The opening book, consulted before any search.
+   */
+  private PositionBook openings;
+
   /**
    * The opponent's color.  Must be Board.BLACK or Board.WHITE.
    */
   private final int oppSide;
+
+  /**
+   * The depth of the search that produced {@code ponderMove}.
+   */
+  private int ponderDepth;
+
+  /**
+   * The key of the position, with this engine's side to move, that
+   * {@code ponderMove} answers.
+   */
+  private long ponderKey;
+
+  /**
+   * The encoded best move found by the last pondering search that ran to
+   * completion, or Board.NO_MOVE if there is none waiting to be played.
+   */
+  private int ponderMove;
+
+  /**
+   * The score of {@code ponderMove}.
+   */
+  private int ponderScore;
+
+  /**
+   * The thread searching on the opponent's time, or null if this engine is
+   * not pondering.
+   */
+  private Thread ponderThread;
+
+  /**
+   * The best move found at the root by the most recent call of
+   * {@code getBestMoveHelper} with ply 0, or Board.NO_MOVE if it found none.
+   */
+  private int rootMove;
+
+  /**
+   * Ordering scores parallel to {@code moveBuffers}.
+   */
+  private final int[][] scoreBuffers;
   
   /**
    * The number of turns to search through before calculating the score of the
@@ -69,6 +327,74 @@ public class Engine {
    */
   public final int side;
 
+  /**
+   * The step-phase solver, created by its first use.
+   */
+  private StepSolver solver;
+
+  /**
+   * The total time, in nanoseconds, spent in the step-phase solver so far.
+   */
+  private long solverNanos;
+
+  /**
+   * The total number of positions expanded by the step-phase solver so far.
+   */
+  private long solverNodes;
+
+  /**
+   * Measurements of the search in progress or most recently finished.
+   */
+  private final SearchStats stats;
+
+  /**
+   * Set to make a search in progress unwind as fast as possible.  Only a
+   * pondering search is ever stopped.
+   */
+  private volatile boolean stopped;
+
+  /**
+   * Best moves from previous searches, keyed by position.
+   */
+  private final TranspositionTable table;
+
+  /**
+   * Evaluation term buffer for {@code Weights.evaluate}.
+   */
+  private final int[] termBuffer;
+
+  /**
+   * Move buffer for {@code Board.findNetworkMove}.
+   */
+  private final int[] threatBuffer;
+
+  /**
+   * The number of transposition table lookups that found a move, over all
+   * searches so far.
+   */
+  private long tableHits;
+
+  /**
+   * The total number of transposition table lookups over all searches so far.
+   */
+  private long tableProbes;
+
+  /**
+   * Where the search tree is written, or null if it is not.
+   */
+  private PrintStream trace;
+
+  /**
+   * The number of turns from the root of the search tree that is written to
+   * {@code trace}, or 0 if none is.
+   */
+  private int tracePlies;
+
+  /**
+   * The weights of the terms of the evaluation function.
+   */
+  private Weights weights;
+
   /**
    * Constructor for a new AI engine of a {@code MachinePlayer} with the given
    * board, color, and move search depth.
@@ -80,10 +406,76 @@ public class Engine {
    *                    if a win or loss has not been found.
    */
   public Engine(Board board, int side, int depth) {
+    this(board, side, depth, new TranspositionTable(TT_BITS));
+  }
+
+  /**
+   * Constructor for a new AI engine that shares a transposition table with
+   * other engines, which may search on other threads.  What one engine
+   * learns about a position then speeds up the others' searches of it.
+   * 
+   * @param board       the game board upon which to keep track of moves.
+   * @param side        the engine's color, must be Board.BLACK or
+   *                    Board.WHITE.
+   * @param depth       how many turns to search before calculating the score
+   *                    if a win or loss has not been found.
+   * @param table       the transposition table to use.
+   */
+  public Engine(Board board, int side, int depth, TranspositionTable table) {
     this.board = board;
     this.side = side;
     searchDepth = depth;
     oppSide = Board.oppColor(side);
+    history = new int[Board.SIZE * Board.SIZE + 1][Board.SIZE * Board.SIZE];
+    killers = new int[depth + 1][KILLERS_PER_PLY];
+    moveBuffers = new int[depth + QUIESCENCE_PLIES + 1][Board.MAX_MOVES];
+    scoreBuffers = new int[depth + QUIESCENCE_PLIES + 1][Board.MAX_MOVES];
+    termBuffer = new int[Weights.TERMS];
+    threatBuffer = new int[Board.MAX_MOVES];
+    this.table = table;
+    stats = new SearchStats();
+    openings = PositionBook.empty();
+    endgames = PositionBook.empty();
+    ponderMove = Board.NO_MOVE;
+    rootMove = Board.NO_MOVE;
+    weights = Weights.defaults();
+  }
+
+  /**
+   * Decays the history scores so that recent searches outweigh old ones, and
+   * forgets the killer moves of the previous search.
+   */
+  private void ageOrderingTables() {
+    for (int[] row : history) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] >>= 1;
+      }
+    }
+    for (int[] plyKillers : killers) {
+      Arrays.fill(plyKillers, Board.NO_MOVE);
+    }
+  }
+
+  /**
+   * Searches the current position, with this engine's side to move, through
+   * {@code depth} turns and returns the best move found.  Unlike
+   * {@code getBestMove}, it never consults the books, plays a fixed opening
+   * move, or uses a pondering result, so it suits positions that did not
+   * arise in this engine's game.  The move's score is available from
+   * {@code getLastScore}.  Neither player may already have a network.
+   * 
+   * @param depth       the number of turns to search.  Must be at least 1 and
+   *                    at most the depth this engine was constructed with.
+   * @return            the best move, or null if this side has no valid
+   *                    move.
+   */
+  public Move analyze(int depth) {
+    stopPondering();
+    int move = searchMove(depth);
+    if (move == Board.NO_MOVE) {
+      return null;
+    }
+    return Board.decodeMove(move);
   }
 
   /**
@@ -91,9 +483,9 @@ public class Engine {
    * board for the {@code MachinePlayer}.  It is only to be used when the
    * {@code MachinePlayer} is the white player.
    * 
-   * @return        an add move to one of the four center squares.
+   * @return        an encoded add move to one of the four center squares.
    */
-  private Move chooseOpeningMove() {
+  private int chooseOpeningMove() {
     Random rand = new Random();
     double val = rand.nextDouble();
     int x, y;
@@ -108,189 +500,797 @@ public class Engine {
     } else {
       x = y = Board.SIZE / 2;
     }
-    return new Move(x, y);
+    return Board.addMove(x * Board.SIZE + y);
+  }
+
+  /**
+   * Returns the depth to search the current position to.  Once white has
+   * placed all but one of its chips the game enters the step phase, where
+   * every chip can move and a shallow search is all there is time for.
+   * 
+   * @return        the search depth for this engine's next move.
+   */
+  private int currentDepth() {
+    if (board.getNumChips(Board.WHITE) >= Board.MAX_CHIPS - 1) {
+      return 2;
+    }
+    return searchDepth;
   }
 
   /**
    * Selects the best move for the {@code MachinePlayer} based on a game tree 
-   * search and an evaluation function.  If the {@code MachinePlayer} is white
-   * and it is the first turn of the game, it returns an add move to one of the
-   * four center squares.
+   * search and an evaluation function.  Positions found in the endgame cache
+   * or the opening book are answered from there without searching.  If the
+   * {@code MachinePlayer} is white and it is the first turn of the game, and
+   * the book has no move, it returns an add move to one of the four center
+   * squares.  If pondering already searched this exact position to full
+   * depth, its move is returned at once.  In the step phase, a forced network
+   * is looked for with the {@code StepSolver} before searching.
+   * <p>
+   * Stops any pondering search first.
    * 
    * @return      the {@code Move} determined to have the best score for the
    *              {@code MachinePlayer}.
    */
   public Move getBestMove() {
-    Best myBest;
+    stopPondering();
+    depthReached = 0;
+    int move = probeBooks();
+    if (move != Board.NO_MOVE) {
+      return Board.decodeMove(move);
+    }
+    int depth = currentDepth();
+    int pondered = ponderMove;
+    ponderMove = Board.NO_MOVE;
     if (board.getNumChips(Board.WHITE) == 0 && side == Board.WHITE) {
-      myBest = new Best(chooseOpeningMove(), 0.0);
-    } else if (board.getNumChips(Board.WHITE) >= Board.MAX_CHIPS - 1) {
-      myBest = getBestMoveHelper(side, -Double.MAX_VALUE, Double.MAX_VALUE, 2);
+      move = chooseOpeningMove();
+    } else if (pondered != Board.NO_MOVE && ponderDepth >= depth &&
+        ponderKey == board.positionKey(side) &&
+        board.isValidMove(side, pondered)) {
+      move = pondered;
+      lastScore = ponderScore;
+      depthReached = ponderDepth;
     } else {
-      myBest = getBestMoveHelper(side, -Double.MAX_VALUE, Double.MAX_VALUE, searchDepth);
+      stats.reset();
+      move = solveStepPhase();
+      if (move == Board.NO_MOVE) {
+        Best myBest = iterativeDeepening(depth, true);
+        lastScore = myBest.score;
+        move = myBest.move;
+      }
     }
-    return myBest.move;
+    if (move == Board.NO_MOVE) {
+      return null;
+    }
+    return Board.decodeMove(move);
   }
 
   /**
    * Serves as an internal helper method for {@code getBestMove} which does a
-   * game tree search through {@code depth} turns.
+   * principal variation search through {@code depth} turns.  Scores are from
+   * the point of view of {@code color}, the player to move.  The first,
+   * best-ordered move is searched with the full window; every later move is
+   * first searched with a null window, which only proves that it is no
+   * better, and is searched again with the full window in the rare case that
+   * it is.
+   * <p>
+   * Scores are fail-soft: a score at or below {@code alpha} is an upper bound
+   * on the true score, and a score at or above {@code beta} is a lower bound.
+   * At ply 0, the best move found is left in {@code rootMove}, or
+   * Board.NO_MOVE if the game is already won or {@code color} has no valid
+   * move.
    * 
-   * @param color       the color of the player seeking a best move.
-   * @param alpha       the best (highest) score the given player knows it can
-   *                    achieve thus far.
-   * @param beta        the best (lowest) score the opponent knows it can 
-   *                    achieve thus far.
+   * @param color       the color of the player to move.
+   * @param alpha       the score {@code color} knows it can achieve thus far.
+   * @param beta        the score the opponent knows it can hold
+   *                    {@code color} to thus far.
    * @param depth       the number of turns to run in the search.  If 
-   *                    {@code depth} is 0, the evaluation function is used to 
+   *                    {@code depth} is 0, the quiescence search is used to 
    *                    predict winning chances.
-   * @return            a {@code Best} containing the best discovered
-   *                    {@code Move} and its score.
+   * @param ply         the distance, in turns, from the root of the search.
+   * @return            the score of the position for {@code color}.
    */
-  private Best getBestMoveHelper(int color, double alpha, double beta, int depth) {
-    Best myBest = new Best(null, 0.0);
-    Best oppBest;
+  private int getBestMoveHelper(int color, int alpha, int beta, int depth,
+      int ply) {
+    stats.nodes++;
+
+    // a stopped search returns at once; its results are discarded
+    if (stopped) {
+      return 0;
+    }
+
+    // a network is always scored by its distance from the root (this makes
+    // the machine choose the sooner win)
+
+    // the player who just moved loses if its move completed networks for
+    // both sides, so the player to move is checked first
+    int oppColor = Board.oppColor(color);
+    if (hasNetwork(color)) {
+      if (ply == 0) {
+        rootMove = Board.NO_MOVE;
+      }
+      return NETWORK_SCORE - ply;
+    }
+    if (hasNetwork(oppColor)) {
+      if (ply == 0) {
+        rootMove = Board.NO_MOVE;
+      }
+      return -NETWORK_SCORE + ply;
+    }
 
     // this should only happen when we just want to know how good
     // a move looks, not when we actually need a move
     if (depth == 0) {
-      myBest.score = getScore();
-      return myBest;
+      return quiesce(color, alpha, beta, ply, QUIESCENCE_PLIES);
     }
 
-    // wait to check for networks because if depth = 0
-    // we want to lower the value of any discovered
-    // networks (this makes the machine choose the sooner win)
-    
-    // we also must record a network for the opponent first because
-    // in the event of both sides having a network following our move,
-    // the opponent wins
-    if (board.hasNetwork(oppSide)) {
-      myBest.score = -Double.MAX_VALUE;
-      return myBest;
-    }
-    if (board.hasNetwork(side)) {
-      myBest.score = Double.MAX_VALUE;
-      return myBest;
+    // no line can end better than a network on this move or worse than a
+    // loss on this move; once a network that soon is proven for either
+    // side, nothing else needs searching
+    alpha = Math.max(alpha, -NETWORK_SCORE + ply + 1);
+    beta = Math.min(beta, NETWORK_SCORE - ply - 1);
+    if (alpha >= beta) {
+      return alpha;
     }
-    
-    // if this is our search round, set our best known score to alpha
-    if (color == side) {
-      myBest.score = alpha;
-      //myBest.score = -Double.MAX_VALUE;
-    } 
-    // otherwise this is the opponent's round, set its best known score
-    // to beta
-    else {
-      myBest.score = beta;
-      //myBest.score = Double.MAX_VALUE;
+
+    // a deep enough earlier search of this position may settle it outright;
+    // at the root a move is needed, so the root is always searched
+    long key = board.positionKey(color);
+    long entry = table.find(key);
+    int ttMove = Board.NO_MOVE;
+    stats.tableProbes++;
+    if (entry != TranspositionTable.EMPTY) {
+      stats.tableHits++;
+      ttMove = TranspositionTable.move(entry);
+      if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+        int score = fromTable(TranspositionTable.score(entry), ply);
+        int bound = TranspositionTable.bound(entry);
+        if (bound == TranspositionTable.EXACT ||
+            (bound == TranspositionTable.LOWER && score >= beta) ||
+            (bound == TranspositionTable.UPPER && score <= alpha)) {
+          return score;
+        }
+      }
     }
-    
-    int oppColor = Board.oppColor(color);
-    
+
     // start searching through moves to see which one offers the
-    // highest probability of winning
-    List moves = board.getAllValidMoves(color);
-    for (Object o : moves) {
-      Move curMove = (Move)o;
-      // prevent NullPointerException in event of guaranteed loss in
-      // upcoming moves
-      if (myBest.move == null) {
-        myBest.move = curMove;
+    // highest probability of winning, most promising moves first
+    int[] moves = moveBuffers[ply];
+    int[] scores = scoreBuffers[ply];
+    int n = board.generateMoves(color, moves);
+    if (n == 0) {
+      if (ply == 0) {
+        rootMove = Board.NO_MOVE;
+      }
+      return color == side ? getScore() : -getScore();
+    }
+    for (int i = 0; i < n; i++) {
+      scores[i] = orderScore(color, moves[i], ttMove, ply);
+    }
+    int origAlpha = alpha;
+    int bestMove = Board.NO_MOVE;
+    int bestScore = -INFINITY;
+    for (int i = 0; i < n; i++) {
+      int curMove = selectNext(moves, scores, i, n);
+
+      if (ply < tracePlies) {
+        trace.printf("%" + (2 * ply + 1) + "s%s [%d, %d]%n", "",
+            Board.decodeMove(curMove), alpha, beta);
       }
 
       // try move, then let other player see what its best move is
       board.doMove(color, curMove);
-      // note: as we update alpha and beta, our search will prune
-      // configurations that aren't more promising than what
-      // we have already found
-      oppBest = getBestMoveHelper(oppColor, alpha, beta, depth - 1);
+      int score;
+      if (i == 0) {
+        score = -getBestMoveHelper(oppColor, -beta, -alpha, depth - 1,
+            ply + 1);
+      } else {
+        score = -getBestMoveHelper(oppColor, -alpha - 1, -alpha, depth - 1,
+            ply + 1);
+        if (score > alpha && score < beta) {
+          score = -getBestMoveHelper(oppColor, -beta, -alpha, depth - 1,
+              ply + 1);
+        }
+      }
       board.undoMove(color, curMove);
-      
-      // if we find that the opponent's best move (after we do "curMove")
-      // raises the probability that we will win, we choose
-      // "curMove" to be our best known move and update alpha,
-      // which represents the best score we know we can force
-      
-      // note: for us (side), a higher score is better
-      if (color == side && myBest.score < oppBest.score) {
-        alpha = oppBest.score;
-        myBest.move = curMove;
-        myBest.score = oppBest.score;
-      } 
-      
-      // if opponent finds that our best move (after it does "curMove")
-      // raises the probability that it will win, it chooses
-      // "curMove" to be its best known move and updates beta,
-      // which represents the best score it knows it can force
-      
-      // note: for the opponent (oppSide), a lower score is better
-      else if (color == oppSide &&
-          myBest.score > oppBest.score) {
-        beta = oppBest.score;
-        myBest.move = curMove;
-        myBest.score = oppBest.score;
+      if (stopped) {
+        return 0;
       }
-      
+      if (ply < tracePlies) {
+        trace.printf("%" + (2 * ply + 1) + "s= %d%s%n", "", score,
+            score >= beta ? " cutoff" : "");
+      }
+
+      // note: as we raise alpha, our search will prune configurations
+      // that aren't more promising than what we have already found
+      if (score > bestScore) {
+        bestScore = score;
+        bestMove = curMove;
+        if (score > alpha) {
+          alpha = score;
+        }
+      }
+
       // once the best move we know we can achieve is at least as good
-      // as the best move the opponent can achieve, prune the game tree rooted
-      // at this current grid
+      // as the best move the opponent can hold us to, prune the game tree
+      // rooted at this current grid
       if (alpha >= beta) {
+        recordCutoff(curMove, depth, ply);
+        stats.cutoffs[Math.min(i, SearchStats.CUTOFF_SLOTS - 1)]++;
         break;
       }
-      
-      // otherwise keep searching in hopes of finding salvation in a
-      // better move from the list of valid moves
     }
-    // return our best move and its score
-    return myBest;
+
+    int bound;
+    if (bestScore <= origAlpha) {
+      bound = TranspositionTable.UPPER;
+    } else if (bestScore >= beta) {
+      bound = TranspositionTable.LOWER;
+    } else {
+      bound = TranspositionTable.EXACT;
+    }
+    table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+    if (ply == 0) {
+      rootMove = bestMove;
+    }
+    return bestScore;
+  }
+
+  /**
+   * Returns the depth of the last completed iteration of the most recent
+   * search.  Returns 0 if the most recent move was played from a book, from
+   * the fixed opening moves, or from a network proved by the step-phase
+   * solver.
+   * 
+   * @return      the depth reached by the most recent search.
+   */
+  public int getDepthReached() {
+    return depthReached;
+  }
+
+  /**
+   * Returns the score of the move most recently chosen by
+   * {@code searchMove}, from this engine's side's point of view.
+   * 
+   * @return      the score of the last searched move.
+   */
+  public int getLastScore() {
+    return lastScore;
+  }
+
+  /**
+   * Returns the total number of positions visited by all finished searches
+   * of this engine so far.
+   * 
+   * @return      the cumulative node count.
+   */
+  public long getNodes() {
+    return nodes;
   }
 
   /**
    * Calculates the score of the given configuration of the board, giving a 
    * more positive score to a board in favor of the {@code MachinePlayer} and
-   * a more negative score to a board in favor of its opponent.
+   * a more negative score to a board in favor of its opponent, as weighted
+   * by {@code weights}.  Networks are scored by the search, not here.
    * 
-   * @return       a double representing the score of the current board
+   * @return       an int representing the score of the current board
    *               configuration.
    */
-  private double getScore() {
-    if (board.hasNetwork(oppSide)) {
-      return -Double.MAX_VALUE / searchDepth +
-          board.totalNetworks(oppSide);
+  private int getScore() {
+    long t0 = System.nanoTime();
+    int score = weights.evaluate(board, side, termBuffer);
+    stats.evalNanos += System.nanoTime() - t0;
+    stats.leaves++;
+    return score;
+  }
+
+  /**
+   * Returns the total time spent in the step-phase solver by this engine so
+   * far.  It is part of the time {@code getBestMove} takes, but the
+   * solver's positions are not counted by {@code getNodes}.
+   * 
+   * @return      the cumulative solver time, in nanoseconds.
+   */
+  public long getSolverNanos() {
+    return solverNanos;
+  }
+
+  /**
+   * Returns the total number of positions expanded by the step-phase solver
+   * of this engine so far.
+   * 
+   * @return      the cumulative solver node count.
+   */
+  public long getSolverNodes() {
+    return solverNodes;
+  }
+
+  /**
+   * Returns the measurements of the search in progress or most recently
+   * finished.  Read them on the searching thread or after the search
+   * returns, and copy them to keep them past the next search.
+   * 
+   * @return      the measurements of the current or last search.
+   */
+  public SearchStats getStats() {
+    return stats;
+  }
+
+  /**
+   * Returns the number of transposition table lookups that found a move, over
+   * all searches of this engine so far.
+   * 
+   * @return      the cumulative number of table hits.
+   */
+  public long getTableHits() {
+    return tableHits;
+  }
+
+  /**
+   * Returns the total number of transposition table lookups over all
+   * searches of this engine so far.
+   * 
+   * @return      the cumulative number of table lookups.
+   */
+  public long getTableProbes() {
+    return tableProbes;
+  }
+
+  /**
+   * Returns whether a player has a network on the board, counting the check
+   * in {@code stats}.
+   * 
+   * @param color       the color of the player.
+   * @return            true if {@code color} has a network.
+   */
+  private boolean hasNetwork(int color) {
+    stats.networkChecks++;
+    return board.hasNetwork(color);
+  }
+
+  /**
+   * Searches to depth 1, then depth 2, and so on up to {@code depth}.  Each
+   * iteration leaves best moves in the transposition table and killer and
+   * history scores behind, so that the next, deeper iteration searches the
+   * strongest moves first and prunes far more of the game tree.
+   * <p>
+   * From the third iteration on, each searches with an aspiration window: a
+   * narrow window around the score of the iteration two turns shallower,
+   * which prunes more.  (The evaluation swings between odd and even depths,
+   * so the previous iteration's score is a poorer guess.)  If the score
+   * falls outside the window, that side of the window is opened and the
+   * iteration is searched again.
+   * <p>
+   * If the search is stopped, the interrupted iteration is discarded and the
+   * result of the last completed one is returned.
+   * <p>
+   * The search is measured in {@code stats}, which the listener, if any, is
+   * shown after each iteration and at the end, unless the search is
+   * pondering.  Its counts and time are added to those already in
+   * {@code stats}, so that a search after the step-phase solver is measured
+   * together with it; other callers reset {@code stats} first.
+   * 
+   * @param depth       the depth of the final iteration.
+   * @param report      whether to report the search to the listener.  A
+   *                    pondering search runs on the opponent's time, so it
+   *                    is not reported.
+   * @return            the best move and score found by the final completed
+   *                    iteration, or null if none was completed.
+   */
+  private Best iterativeDeepening(int depth, boolean report) {
+    ageOrderingTables();
+    rootMove = Board.NO_MOVE;
+    long start = System.nanoTime() - stats.nanos;
+    Best myBest = null;
+    int[] iterationScores = new int[depth + 1];
+    for (int d = 1; d <= depth; d++) {
+      int alpha = -INFINITY;
+      int beta = INFINITY;
+      if (d > 2 && !isSolved(iterationScores[d - 2])) {
+        alpha = iterationScores[d - 2] - ASPIRATION_WINDOW;
+        beta = iterationScores[d - 2] + ASPIRATION_WINDOW;
+      }
+      if (tracePlies > 0) {
+        trace.println("depth " + d);
+      }
+      int score = getBestMoveHelper(side, alpha, beta, d, 0);
+      while (!stopped && (score <= alpha || score >= beta)) {
+        if (score <= alpha) {
+          alpha = -INFINITY;
+        } else {
+          beta = INFINITY;
+        }
+        score = getBestMoveHelper(side, alpha, beta, d, 0);
+      }
+      if (stopped) {
+        break;
+      }
+      myBest = new Best(rootMove, score);
+      iterationScores[d] = score;
+      depthReached = d;
+      stats.depth = d;
+      stats.nanos = System.nanoTime() - start;
+      if (report && listener != null) {
+        listener.iterationFinished(d, rootMove == Board.NO_MOVE ? null :
+            Board.decodeMove(rootMove), score, stats);
+      }
     }
-    if (board.hasNetwork(side)) {
-      return Double.MAX_VALUE / searchDepth +
-          board.totalNetworks(side);
+    stats.nanos = System.nanoTime() - start;
+    nodes += stats.nodes;
+    tableHits += stats.tableHits;
+    tableProbes += stats.tableProbes;
+    if (report && listener != null) {
+      listener.searchFinished(stats);
     }
+    return myBest;
+  }
 
-    List allMyPaths = board.getAllPaths(side);
-    List allOppPaths = board.getAllPaths(oppSide);
-    
-    // key values used to determine the score //
-    
-    // connections between pieces (each connection is counted twice)
-    int numMyConnections = board.getNumConnections(side);
-    int numOppConnections = board.getNumConnections(oppSide);
-    int numConnections = numMyConnections - numOppConnections;
-
-    // length of longest path between pieces
-    int myLongestPath = board.longestPathLength(allMyPaths);
-    int oppLongestPath = board.longestPathLength(allOppPaths);
-    int longestPath = myLongestPath - oppLongestPath;
-    
-    // currently possible valid moves
-    int myAvailableMoves = board.getAllValidMoves(side).length();
-    int oppAvailableMoves = board.getAllValidMoves(oppSide).length();
-    int availableMoveDiff = myAvailableMoves - oppAvailableMoves;
-    
-    // number of chips in a goal
-    int myChipsInGoal = board.chipsInGoal(side);
-    int oppChipsInGoal = board.chipsInGoal(oppSide);
-    int chipsInGoalDiff = myChipsInGoal - oppChipsInGoal;
+  /**
+   * Returns whether a score proves a forced network for one side, as opposed
+   * to estimating winning chances.
+   * 
+   * @param score       a score returned by a search of this engine.
+   * @return            true if the score comes from a network found in the
+   *                    search, false otherwise.
+   */
+  public boolean isSolved(int score) {
+    return Math.abs(score) >= NETWORK_SCORE - MAX_PLY;
+  }
 
-    double score = 10 * numConnections + 2.6 * longestPath + 
-        2.0 * availableMoveDiff + 2.0 * chipsInGoalDiff;
-    return score;
+  /**
+   * Returns a score used to decide the order in which moves are searched.
+   * Higher scores are searched first.  The transposition table move comes
+   * first, then the killer moves of this ply, then every other move ranked
+   * by its history score plus a cheap static estimate: moves into one of the
+   * mover's goals and moves that gain connections score higher.
+   * 
+   * @param color       the color of the player making the move.
+   * @param move        the encoded move to score.
+   * @param ttMove      the move stored in the transposition table for the
+   *                    current position, or Board.NO_MOVE if there is none.
+   * @param ply         the distance, in turns, from the root of the search.
+   * @return            the ordering score of {@code move}.
+   */
+  private int orderScore(int color, int move, int ttMove, int ply) {
+    if (move == ttMove) {
+      return TT_MOVE_SCORE;
+    }
+    for (int i = 0; i < KILLERS_PER_PLY; i++) {
+      if (move == killers[ply][i]) {
+        return KILLER_SCORE - i;
+      }
+    }
+    int score = history[fromIndex(move)][toIndex(move)];
+    int to = Board.moveTo(move);
+    if (board.isInGoal(color, to / Board.SIZE, to % Board.SIZE)) {
+      score += GOAL_BONUS;
+    }
+    int gained = board.countConnections(color, to / Board.SIZE,
+        to % Board.SIZE);
+    if (Board.isStep(move)) {
+      int from = Board.moveFrom(move);
+      gained -= board.countConnections(color, from / Board.SIZE,
+          from % Board.SIZE);
+    }
+    return score + CONNECTION_BONUS * gained;
+  }
+
+  /**
+   * Plays the predicted reply of the opponent on the board, searches the
+   * resulting position as if it were this engine's turn, and takes the reply
+   * back.  A search that runs to completion is kept for
+   * {@code getBestMove}; in any case its transposition table entries and
+   * ordering scores remain, so even a stopped search speeds up the next one.
+   * Runs on the pondering thread.
+   * 
+   * @param reply       the encoded move the opponent is expected to make.
+   */
+  private void ponder(int reply) {
+    board.doMove(oppSide, reply);
+    try {
+      int depth = currentDepth();
+      stats.reset();
+      Best myBest = iterativeDeepening(depth, false);
+      if (!stopped && myBest != null && myBest.move != Board.NO_MOVE) {
+        ponderKey = board.positionKey(side);
+        ponderMove = myBest.move;
+        ponderScore = myBest.score;
+        ponderDepth = depth;
+      }
+    } finally {
+      board.undoMove(oppSide, reply);
+    }
+  }
+
+  /**
+   * Predicts the opponent's reply in the current position, where it is the
+   * opponent's turn, from the move the last search stored for this position
+   * in the transposition table.
+   * 
+   * @return            the encoded predicted move, or Board.NO_MOVE if there
+   *                    is no valid prediction or the game is over.
+   */
+  private int predictReply() {
+    if (board.hasNetwork(side) || board.hasNetwork(oppSide)) {
+      return Board.NO_MOVE;
+    }
+    int move = table.probe(board.positionKey(oppSide));
+    if (move == Board.NO_MOVE || !board.isValidMove(oppSide, move)) {
+      return Board.NO_MOVE;
+    }
+    return move;
+  }
+
+  /**
+   * Looks up the current position in the endgame cache, then in the opening
+   * book.  A stored move is only returned if it is valid on this board, which
+   * guards against key collisions and stale book files.
+   * 
+   * @return            the encoded book move, or Board.NO_MOVE if neither book
+   *                    has a valid move for this position.
+   */
+  private int probeBooks() {
+    long key = board.positionKey(side);
+    int move = endgames.probeMove(key);
+    if (move == Board.NO_MOVE || !board.isValidMove(side, move)) {
+      move = openings.probeMove(key);
+    }
+    if (move == Board.NO_MOVE || !board.isValidMove(side, move)) {
+      return Board.NO_MOVE;
+    }
+    return move;
+  }
+
+  /**
+   * Estimates the score of a position at the end of the nominal search depth.
+   * A quiet position is scored by the evaluation function.  A position in
+   * which a player is one move from a network is not quiet, and the static
+   * score would miss what happens next, so the search is extended:
+   * <ul>
+   *    <li>If the player to move can complete a network, it wins on its next
+   *    move.</li>
+   *    <li>If the opponent can complete a network, the player to move must
+   *    block it.  Its moves are searched one turn further, where every move
+   *    that fails to block loses at once and any new threat made by a move
+   *    that blocks is resolved the same way.</li>
+   * </ul>
+   * Threats are found with {@code Board.findNetworkMove}, which is exact, so
+   * a position reached by an add move cannot hold a network; only one reached
+   * by a step move is checked with {@code Board.hasNetwork}.  The caller must
+   * already have checked the position itself.
+   *
+   * @param color       the color of the player to move.
+   * @param alpha       the score {@code color} knows it can achieve thus far.
+   * @param beta        the score the opponent knows it can hold
+   *                    {@code color} to thus far.
+   * @param ply         the distance, in turns, from the root of the search.
+   * @param plies       the number of extra turns still allowed.
+   * @return            the score of the position for {@code color}.
+   */
+  private int quiesce(int color, int alpha, int beta, int ply, int plies) {
+    if (stopped) {
+      return 0;
+    }
+    int oppColor = Board.oppColor(color);
+    if (board.findNetworkMove(color, threatBuffer) != Board.NO_MOVE) {
+      return NETWORK_SCORE - ply - 1;
+    }
+    int standPat = color == side ? getScore() : -getScore();
+    if (plies == 0) {
+      return standPat;
+    }
+    int threat = board.findNetworkMove(oppColor, threatBuffer);
+    if (threat == Board.NO_MOVE) {
+      return standPat;
+    }
+
+    // try the moves onto the threatened square first
+    int[] moves = moveBuffers[ply];
+    int[] scores = scoreBuffers[ply];
+    int n = board.generateMoves(color, moves);
+    for (int i = 0; i < n; i++) {
+      scores[i] = Board.moveTo(moves[i]) == Board.moveTo(threat) ? 1 : 0;
+    }
+    // if nothing blocks, the opponent completes its network next turn
+    int bestScore = -NETWORK_SCORE + ply + 2;
+    alpha = Math.max(alpha, bestScore);
+    for (int i = 0; i < n && alpha < beta; i++) {
+      int curMove = selectNext(moves, scores, i, n);
+      // a move that fails to block loses to the opponent's network at once
+      board.doMove(color, curMove);
+      stats.nodes++;
+      int score;
+      if (Board.isStep(curMove) && hasNetwork(oppColor)) {
+        score = -NETWORK_SCORE + ply + 1;
+      } else if (Board.isStep(curMove) && hasNetwork(color)) {
+        score = NETWORK_SCORE - ply - 1;
+      } else {
+        score = -quiesce(oppColor, -beta, -alpha, ply + 1, plies - 1);
+      }
+      board.undoMove(color, curMove);
+      if (stopped) {
+        return 0;
+      }
+      if (score > bestScore) {
+        bestScore = score;
+        alpha = Math.max(alpha, score);
+      }
+    }
+    return bestScore;
+  }
+
+  /**
+   * Rewards a move that caused a beta cutoff: it becomes a killer move for
+   * its ply and its history score grows with the square of the remaining
+   * depth, since cutoffs near the root save the most work.
+   * 
+   * @param move        the encoded move that caused the cutoff.
+   * @param depth       the remaining search depth at the cutoff.
+   * @param ply         the distance, in turns, from the root of the search.
+   */
+  private void recordCutoff(int move, int depth, int ply) {
+    history[fromIndex(move)][toIndex(move)] += depth * depth;
+    int[] plyKillers = killers[ply];
+    if (move != plyKillers[0]) {
+      for (int i = KILLERS_PER_PLY - 1; i > 0; i--) {
+        plyKillers[i] = plyKillers[i - 1];
+      }
+      plyKillers[0] = move;
+    }
+  }
+
+  /**
+   * Searches the current position to the given depth, with this engine's
+   * side to move, and returns the best move found.  The books are not
+   * consulted.  The move's score is available from {@code getLastScore}.
+   * 
+   * @param depth       the number of turns to search.  Must be at least 1 and
+   *                    at most the depth this engine was constructed with.
+   * @return            the encoded best move, or Board.NO_MOVE if this side
+   *                    has no valid move.
+   */
+  int searchMove(int depth) {
+    stats.reset();
+    Best myBest = iterativeDeepening(depth, true);
+    lastScore = myBest.score;
+    return myBest.move;
+  }
+
+  /**
+   * Sets the opening book and endgame cache this engine consults before
+   * searching.
+   * 
+   * @param openings    the opening book.
+   * @param endgames    the cache of solved endgame positions.
+   */
+  public void setBooks(PositionBook openings, PositionBook endgames) {
+    this.openings = openings;
+    this.endgames = endgames;
+  }
+
+  /**
+   * Sets the listener told about the progress of each search.  Searches
+   * made while pondering are not reported.
+   * 
+   * @param listener    the new listener, or null for none.
+   */
+  public void setSearchListener(SearchListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Writes the top of each search tree to a stream, one line before and one
+   * after each move searched: the move and the alpha-beta window it was
+   * searched with, then its score, marked if it caused a cutoff.  Lines are
+   * indented two spaces per turn from the root.  The output grows quickly
+   * with {@code plies}, and slows the search, so this is meant for
+   * diagnosing single moves.
+   * 
+   * @param out         the stream to write to, or null to stop writing.
+   * @param plies       the number of turns from the root to write.
+   */
+  public void setTrace(PrintStream out, int plies) {
+    trace = out;
+    tracePlies = out == null ? 0 : plies;
+  }
+
+  /**
+   * Sets the weights of the evaluation function.
+   * 
+   * @param weights     the new weights.
+   */
+  public void setWeights(Weights weights) {
+    this.weights = weights;
+  }
+
+  /**
+   * Looks for a network this engine can force in the step phase, when every
+   * chip is on the board.  The {@code StepSolver} proves or disproves a
+   * forced network within SOLVER_TURNS of this engine's moves far faster
+   * than a search of the same depth, and remembers what it settled for the
+   * following moves.  It gives up after SOLVER_MILLIS.
+   * <p>
+   * The solver's expansions and time are recorded in {@code stats}, apart
+   * from the search's nodes.  If the solver settles the move, the listener,
+   * if any, is shown {@code stats} as for a finished search.
+   * 
+   * @return      the encoded first move of a forced network, or
+   *              Board.NO_MOVE if it is not the step phase or none was
+   *              found.
+   */
+  private int solveStepPhase() {
+    if (board.getNumChips(side) < Board.MAX_CHIPS) {
+      return Board.NO_MOVE;
+    }
+    if (solver == null) {
+      solver = new StepSolver(board, side);
+    }
+    long start = System.nanoTime();
+    long expanded = solver.getExpansions();
+    int move = solver.solve(SOLVER_TURNS, SOLVER_NODES, SOLVER_MILLIS);
+    stats.solverNanos = System.nanoTime() - start;
+    stats.solverNodes = solver.getExpansions() - expanded;
+    stats.nanos = stats.solverNanos;
+    solverNanos += stats.solverNanos;
+    solverNodes += stats.solverNodes;
+    if (move != Board.NO_MOVE && board.isValidMove(side, move)) {
+      // the network takes at most this many turns
+      lastScore = NETWORK_SCORE - (2 * SOLVER_TURNS - 1);
+      if (listener != null) {
+        listener.searchFinished(stats);
+      }
+      return move;
+    }
+    return Board.NO_MOVE;
+  }
+
+  /**
+   * Starts searching on the opponent's time.  Call this after making this
+   * engine's move, while waiting for the opponent's.  A background thread
+   * guesses the opponent's reply and searches the position after it; if the
+   * guess is right, {@code getBestMove} answers from that search.
+   * <p>
+   * Until {@code stopPondering} returns, the pondering thread owns the board
+   * and this engine; nothing else may use either.  {@code getBestMove} stops
+   * pondering itself, but any other move must be preceded by a call to
+   * {@code stopPondering}.
+   */
+  public void startPondering() {
+    stopPondering();
+    int reply = predictReply();
+    if (reply == Board.NO_MOVE) {
+      return;
+    }
+    stopped = false;
+    ponderThread = new Thread(() -> ponder(reply), "ponder-" + side);
+    ponderThread.setDaemon(true);
+    ponderThread.start();
+  }
+
+  /**
+   * Stops the pondering search, if any, and waits for the pondering thread to
+   * take back its predicted move, so that the board is as this engine last
+   * left it.
+   */
+  public void stopPondering() {
+    if (ponderThread == null) {
+      return;
+    }
+    stopped = true;
+    boolean interrupted = false;
+    while (ponderThread.isAlive()) {
+      try {
+        ponderThread.join();
+      } catch (InterruptedException ie) {
+        // the board is unsafe to touch until the thread ends
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    ponderThread = null;
+    stopped = false;
   }
 }
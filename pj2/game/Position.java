@@ -0,0 +1,229 @@
+/* Position.java */
+package game;
+
+/**
+ * An immutable arrangement of chips on a Network board.  A position is two
+ * words, one bit per square for each player, so it is cheap to make, keep,
+ * compare, and hand to another thread.  Make one with
+ * {@code Board.snapshot}, and turn it back into a board with
+ * {@code new Board(position)} or {@code Board.setPosition}.
+ * <p>
+ * A position does not record whose turn it is, since that cannot be told
+ * from the chips alone once both players have all of theirs on the board.
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public final class Position {
+
+  /**
+   * The position with no chips on the board.
+   */
+  public static final Position EMPTY = new Position(0L, 0L);
+
+  /**
+   * The squares of black's goals, rows 0 and 7, and of white's goals,
+   * columns 0 and 7, as bit sets.  The corners are in both.
+   */
+  private static final long BLACK_GOALS = 0x8181818181818181L;
+  private static final long WHITE_GOALS = 0xFF000000000000FFL;
+
+  /**
+   * Returns whether any of a player's chips has more than one neighbor of
+   * its own color, which makes three or more chips connected in a cluster.
+   *
+   * @param chips     the squares occupied by the player's chips.
+   * @return          true if the chips include a cluster.
+   */
+  private static boolean hasCluster(long chips) {
+    for (long rest = chips; rest != 0; rest &= rest - 1) {
+      int square = Long.numberOfTrailingZeros(rest);
+      int x = square / Board.SIZE;
+      int y = square % Board.SIZE;
+      int neighbors = 0;
+      for (int xx = Math.max(0, x - 1);
+           xx <= Math.min(Board.SIZE - 1, x + 1); xx++) {
+        for (int yy = Math.max(0, y - 1);
+             yy <= Math.min(Board.SIZE - 1, y + 1); yy++) {
+          if ((chips & (1L << (xx * Board.SIZE + yy))) != 0) {
+            neighbors++;
+          }
+        }
+      }
+      // the count includes the chip itself
+      if (neighbors > 2) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads a position from a line of text: 64 characters, one per square,
+   * listing row 0 from column 0 to column 7, then row 1, and so on, as
+   * {@code Board.toString} draws them.  'b' or 'B' is a black chip, 'w' or
+   * 'W' a white chip, and '.' an empty square.
+   * <p>
+   * The position must be one that valid moves can reach: no chip may be in
+   * a corner or in the other player's goal, no three chips of one color may
+   * be connected in a cluster, and white, who moves first, must have as
+   * many chips as black or one more.
+   *
+   * @param text      the text of the position.
+   * @return          the position.
+   * @throws IllegalArgumentException  if the text is not a position, or is
+   *                  one no game can reach.
+   */
+  public static Position parse(String text) {
+    if (text.length() != Board.SIZE * Board.SIZE) {
+      throw new IllegalArgumentException("a position has " +
+          Board.SIZE * Board.SIZE + " squares, not " + text.length());
+    }
+    long black = 0L;
+    long white = 0L;
+    for (int i = 0; i < text.length(); i++) {
+      int x = i % Board.SIZE;
+      int y = i / Board.SIZE;
+      long bit = 1L << (x * Board.SIZE + y);
+      switch (text.charAt(i)) {
+        case 'b':
+        case 'B':
+          black |= bit;
+          break;
+        case 'w':
+        case 'W':
+          white |= bit;
+          break;
+        case '.':
+          break;
+        default:
+          throw new IllegalArgumentException("bad square '" +
+              text.charAt(i) + "' in position");
+      }
+    }
+    if (Long.bitCount(black) > Board.MAX_CHIPS ||
+        Long.bitCount(white) > Board.MAX_CHIPS) {
+      throw new IllegalArgumentException("a player has more than " +
+          Board.MAX_CHIPS + " chips");
+    }
+    int extra = Long.bitCount(white) - Long.bitCount(black);
+    if (extra != 0 && extra != 1) {
+      throw new IllegalArgumentException("white, who moves first, must " +
+          "have as many chips as black or one more");
+    }
+    if ((black & WHITE_GOALS) != 0) {
+      throw new IllegalArgumentException("a black chip is in a corner or " +
+          "in white's goal");
+    }
+    if ((white & BLACK_GOALS) != 0) {
+      throw new IllegalArgumentException("a white chip is in a corner or " +
+          "in black's goal");
+    }
+    if (hasCluster(black) || hasCluster(white)) {
+      throw new IllegalArgumentException("three or more chips of one " +
+          "color are connected in a cluster");
+    }
+    return new Position(black, white);
+  }
+
+  /**
+   * The squares occupied by black and white chips.  Bit
+   * {@code x * Board.SIZE + y} stands for square (x,y).
+   */
+  private final long black;
+  private final long white;
+
+  /**
+   * Constructs a position from the squares each player occupies.
+   *
+   * @param black     the squares occupied by black chips.
+   * @param white     the squares occupied by white chips.  No square may be
+   *                  occupied by both players.
+   */
+  Position(long black, long white) {
+    if ((black & white) != 0) {
+      throw new IllegalArgumentException("a square holds two chips");
+    }
+    this.black = black;
+    this.white = white;
+  }
+
+  /**
+   * Returns whether this position has the same chips as another object.
+   *
+   * @param o     an object.
+   * @return      true if {@code o} is a {@code Position} with the same chips
+   *              on the same squares.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof Position)) {
+      return false;
+    }
+    Position p = (Position)o;
+    return black == p.black && white == p.white;
+  }
+
+  /**
+   * Returns the contents of square (x,y).
+   *
+   * @param x     the x-coordinate of the square.
+   * @param y     the y-coordinate of the square.
+   * @return      Board.BLACK or Board.WHITE if a chip of that color is on
+   *              the square, or 0 if the square is empty.
+   */
+  public int getChip(int x, int y) {
+    long bit = 1L << (x * Board.SIZE + y);
+    if ((black & bit) != 0) {
+      return Board.BLACK;
+    } else if ((white & bit) != 0) {
+      return Board.WHITE;
+    }
+    return Board.NONE;
+  }
+
+  /**
+   * Returns the squares occupied by a player's chips.
+   *
+   * @param side      the color of the player.  Must be Board.BLACK or
+   *                  Board.WHITE.
+   * @return          a bit set in which bit {@code x * Board.SIZE + y} is set
+   *                  if the player has a chip on square (x,y).
+   */
+  long getChips(int side) {
+    return side == Board.BLACK ? black : white;
+  }
+
+  /**
+   * Returns the number of chips a player has on the board.
+   *
+   * @param side      the color of the player.  Must be Board.BLACK or
+   *                  Board.WHITE.
+   * @return          the number of the player's chips.
+   */
+  public int getNumChips(int side) {
+    return Long.bitCount(getChips(side));
+  }
+
+  /**
+   * Returns a hash code for this position.
+   *
+   * @return      a hash code consistent with {@code equals}.
+   */
+  @Override
+  public int hashCode() {
+    long h = black * 0x9E3779B97F4A7C15L ^ white;
+    return (int)(h ^ (h >>> 32));
+  }
+
+  /**
+   * Returns a string representation of this position, in the same layout as
+   * {@code Board.toString}.
+   *
+   * @return      a string representation of this position.
+   */
+  @Override
+  public String toString() {
+    return new Board(this).toString();
+  }
+}
@@ -0,0 +1,202 @@
+/* PositionBook.java */
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A read-only table of precomputed moves keyed by position, stored in a
+ * compact binary file and memory-mapped on load so that opening it costs
+ * nothing and lookups touch only the pages they need.  The same format holds
+ * both the opening book and the cache of solved endgame positions written by
+ * {@code BookGenerator}.
+ * <p>
+ * File format (big-endian):
+ * <ol>
+ *    <li>int magic number, MAGIC.</li>
+ *    <li>int number of entries, n.</li>
+ *    <li>n entries of ENTRY_BYTES bytes each, sorted by key: a long position
+ *    key as returned by {@code Board.positionKey}, an int encoded move, and
+ *    an int score for the side to move.</li>
+ * </ol>
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class PositionBook {
+
+  /**
+   * Size in bytes of one entry.
+   */
+  private static final int ENTRY_BYTES = 16;
+
+  /**
+   * Size in bytes of the file header.
+   */
+  private static final int HEADER_BYTES = 8;
+
+  /**
+   * Magic number at the start of every book file ("NBK1").
+   */
+  private static final int MAGIC = 0x4E424B31;
+
+  /**
+   * Score stored for a position the side to move has proven it wins.  Its
+   * negation marks a proven loss.
+   */
+  static final int WIN = Integer.MAX_VALUE;
+
+  /**
+   * Returns a book with no entries.
+   *
+   * @return      a new empty {@code PositionBook}.
+   */
+  public static PositionBook empty() {
+    return new PositionBook(null, 0);
+  }
+
+  /**
+   * Memory-maps a book file.  A missing file yields an empty book, so that
+   * players work without one.  A file that cannot be read or is not a book
+   * is reported and also yields an empty book.
+   *
+   * @param fileName    the name of the book file.
+   * @return            the book stored in the file, or an empty book.
+   */
+  public static PositionBook load(String fileName) {
+    Path path = Paths.get(fileName);
+    if (!Files.isRegularFile(path)) {
+      return empty();
+    }
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.READ)) {
+      ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size());
+      if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC) {
+        System.err.println("PositionBook.load(): " + fileName +
+            " is not a position book");
+        return empty();
+      }
+      int count = buf.getInt(4);
+      if ((long)count * ENTRY_BYTES + HEADER_BYTES > buf.capacity()) {
+        System.err.println("PositionBook.load(): " + fileName +
+            " is truncated");
+        return empty();
+      }
+      return new PositionBook(buf, count);
+    } catch (IOException ioe) {
+      System.err.println("PositionBook.load() could not read " + fileName);
+      ioe.printStackTrace();
+      return empty();
+    }
+  }
+
+  /**
+   * Writes a book file.  The entries need not be sorted; each array holds
+   * one field of every entry.  Keys must be distinct.
+   *
+   * @param fileName    the name of the file to write.
+   * @param keys        the position keys.
+   * @param moves       the encoded move for each position.
+   * @param scores      the score of each position for the side to move.
+   * @param count       the number of entries to write.
+   * @throws IOException  if the file cannot be written.
+   */
+  static void write(String fileName, long[] keys, int[] moves, int[] scores,
+      int count) throws IOException {
+    // sort an index array by key so that the three arrays stay parallel
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(fileName)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(count);
+      for (int i : order) {
+        out.writeLong(keys[i]);
+        out.writeInt(moves[i]);
+        out.writeInt(scores[i]);
+      }
+    }
+  }
+
+  /**
+   * The mapped file contents, or null for an empty book.
+   */
+  private final ByteBuffer buf;
+
+  /**
+   * The number of entries in this book.
+   */
+  private final int count;
+
+  /**
+   * Constructor for a book over a mapped file.
+   *
+   * @param buf       the mapped file contents, or null if empty.
+   * @param count     the number of entries.
+   */
+  private PositionBook(ByteBuffer buf, int count) {
+    this.buf = buf;
+    this.count = count;
+  }
+
+  /**
+   * Returns the index of the entry for a position, found by binary search.
+   *
+   * @param key       the position key.
+   * @return          the index of the entry, or -1 if there is none.
+   */
+  private int find(long key) {
+    int lo = 0;
+    int hi = count - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      long midKey = buf.getLong(HEADER_BYTES + mid * ENTRY_BYTES);
+      if (midKey < key) {
+        lo = mid + 1;
+      } else if (midKey > key) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the move stored for a position.
+   *
+   * @param key       the position key, as returned by
+   *                  {@code Board.positionKey}.
+   * @return          the encoded move, or Board.NO_MOVE if the position is
+   *                  not in this book.
+   */
+  int probeMove(long key) {
+    int index = find(key);
+    if (index < 0) {
+      return Board.NO_MOVE;
+    }
+    return buf.getInt(HEADER_BYTES + index * ENTRY_BYTES + 8);
+  }
+
+  /**
+   * Returns the number of positions in this book.
+   *
+   * @return      the number of entries.
+   */
+  public int size() {
+    return count;
+  }
+}
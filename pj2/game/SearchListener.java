@@ -0,0 +1,43 @@
+/* SearchListener.java */
+package game;
+
+import player.Move;
+
+/**
+ * Receives progress reports from an {@code Engine}'s searches, for logging
+ * and diagnosing slow moves.  Register one with
+ * {@code Engine.setSearchListener}.
+ * <p>
+ * Only searches made on the engine's own time are reported, not pondering
+ * searches.  Reports come from the searching thread, so a listener shared
+ * by engines on several threads must be thread-safe.  A listener should
+ * return quickly: the search waits for it.
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public interface SearchListener {
+
+  /**
+   * Called after each completed iteration of a search.
+   *
+   * @param depth     the depth of the iteration.
+   * @param move      the best move found by the iteration, or null if there
+   *                  is none.
+   * @param score     the score of the best move.
+   * @param stats     the measurements of the search so far.  They go on
+   *                  changing after this call returns.
+   */
+  default void iterationFinished(int depth, Move move, int score,
+      SearchStats stats) {
+  }
+
+  /**
+   * Called when a search ends, whether it completed or was stopped, and when
+   * the step-phase solver finds a move without a search.
+   *
+   * @param stats     the measurements of the whole search.  They are reused
+   *                  by the next search; copy them to keep them.
+   */
+  void searchFinished(SearchStats stats);
+}
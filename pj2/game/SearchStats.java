@@ -0,0 +1,224 @@
+/* SearchStats.java */
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Measurements of one search by an {@code Engine}: how many positions it
+ * visited and evaluated, how often the transposition table helped, how well
+ * its moves were ordered, and where its time went.  The engine fills in a
+ * {@code SearchStats} as it searches and hands it to its
+ * {@code SearchListener} after every iteration and at the end of the search.
+ * <p>
+ * The counters are those of the search in progress or most recently
+ * finished, and are only meaningful on the searching thread or after the
+ * search has returned.  Use {@code copy} to keep them.
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class SearchStats {
+
+  /**
+   * The number of move indices counted separately in the cutoff histogram.
+   * Cutoffs by a later move are counted together with those by the last
+   * one.
+   */
+  public static final int CUTOFF_SLOTS = 8;
+
+  /* Instance Fields, written by Engine
+   * cutoffs        beta cutoffs by the index, in search order, of the move
+   *                that caused them
+   * depth          the depth of the last completed iteration
+   * evalNanos      time spent in the evaluation function
+   * leaves         calls of the evaluation function
+   * nanos          time spent searching, including solverNanos
+   * networkChecks  calls of Board.hasNetwork
+   * nodes          positions visited by the alpha-beta search
+   * solverNanos    time spent in the step-phase solver
+   * solverNodes    positions expanded by the step-phase solver
+   * tableHits      transposition table lookups that found an entry
+   * tableProbes    transposition table lookups
+   */
+  final long[] cutoffs = new long[CUTOFF_SLOTS];
+  int depth;
+  long evalNanos;
+  long leaves;
+  long nanos;
+  long networkChecks;
+  long nodes;
+  long solverNanos;
+  long solverNodes;
+  long tableHits;
+  long tableProbes;
+
+  /**
+   * Returns a copy of these measurements, which later searches will not
+   * change.
+   *
+   * @return      a new {@code SearchStats} equal to this one.
+   */
+  public SearchStats copy() {
+    SearchStats s = new SearchStats();
+    System.arraycopy(cutoffs, 0, s.cutoffs, 0, CUTOFF_SLOTS);
+    s.depth = depth;
+    s.evalNanos = evalNanos;
+    s.leaves = leaves;
+    s.nanos = nanos;
+    s.networkChecks = networkChecks;
+    s.nodes = nodes;
+    s.solverNanos = solverNanos;
+    s.solverNodes = solverNodes;
+    s.tableHits = tableHits;
+    s.tableProbes = tableProbes;
+    return s;
+  }
+
+  /**
+   * Returns the number of beta cutoffs caused by the move searched at a
+   * given index.  A high share at index 0 means good move ordering.
+   *
+   * @param index     the index of the move in search order, from 0 to
+   *                  CUTOFF_SLOTS - 1.  The last index counts every later
+   *                  move as well.
+   * @return          the number of cutoffs caused by moves at that index.
+   */
+  public long getCutoffs(int index) {
+    return cutoffs[index];
+  }
+
+  /**
+   * Returns the depth of the last completed iteration.
+   *
+   * @return      the depth reached.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Returns the time spent in the evaluation function.
+   *
+   * @return      the evaluation time, in nanoseconds.
+   */
+  public long getEvalNanos() {
+    return evalNanos;
+  }
+
+  /**
+   * Returns the number of positions scored by the evaluation function.
+   *
+   * @return      the number of leaf evaluations.
+   */
+  public long getLeaves() {
+    return leaves;
+  }
+
+  /**
+   * Returns the time spent searching, including any time spent in the
+   * step-phase solver.
+   *
+   * @return      the wall-clock search time, in nanoseconds.
+   */
+  public long getNanos() {
+    return nanos;
+  }
+
+  /**
+   * Returns the number of times the search asked the board whether a player
+   * has a network.
+   *
+   * @return      the number of network checks.
+   */
+  public long getNetworkChecks() {
+    return networkChecks;
+  }
+
+  /**
+   * Returns the number of positions visited by the alpha-beta search.
+   * Positions expanded by the step-phase solver are counted separately.
+   *
+   * @return      the node count.
+   */
+  public long getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Returns the time spent in the step-phase solver, which the engine tries
+   * before its alpha-beta search once every chip is on the board.
+   *
+   * @return      the solver time, in nanoseconds.
+   */
+  public long getSolverNanos() {
+    return solverNanos;
+  }
+
+  /**
+   * Returns the number of positions expanded by the step-phase solver.
+   *
+   * @return      the solver's node count.
+   */
+  public long getSolverNodes() {
+    return solverNodes;
+  }
+
+  /**
+   * Returns the number of transposition table lookups that found an entry.
+   *
+   * @return      the number of table hits.
+   */
+  public long getTableHits() {
+    return tableHits;
+  }
+
+  /**
+   * Returns the number of transposition table lookups.
+   *
+   * @return      the number of table lookups.
+   */
+  public long getTableProbes() {
+    return tableProbes;
+  }
+
+  /**
+   * Clears every counter, for the start of a new search.
+   */
+  void reset() {
+    Arrays.fill(cutoffs, 0L);
+    depth = 0;
+    evalNanos = 0L;
+    leaves = 0L;
+    nanos = 0L;
+    networkChecks = 0L;
+    nodes = 0L;
+    solverNanos = 0L;
+    solverNodes = 0L;
+    tableHits = 0L;
+    tableProbes = 0L;
+  }
+
+  /**
+   * Returns a one-line summary of these measurements.
+   *
+   * @return      the depth, time, node and leaf counts, table hit rate,
+   *              share of cutoffs by the first move, network checks,
+   *              share of time spent evaluating, and the solver's node
+   *              count and time.
+   */
+  @Override
+  public String toString() {
+    long totalCutoffs = 0;
+    for (long c : cutoffs) {
+      totalCutoffs += c;
+    }
+    return String.format("depth %d, %.1f ms, %d nodes, %d leaves, " +
+        "TT hits %.1f%%, first-move cutoffs %.1f%%, %d network checks, " +
+        "eval %.1f%% of time, solver %d nodes in %.1f ms", depth,
+        nanos / 1e6, nodes, leaves,
+        tableProbes == 0 ? 0.0 : 100.0 * tableHits / tableProbes,
+        totalCutoffs == 0 ? 0.0 : 100.0 * cutoffs[0] / totalCutoffs,
+        networkChecks, nanos == 0 ? 0.0 : 100.0 * evalNanos / nanos,
+        solverNodes, solverNanos / 1e6);
+  }
+}
@@ -0,0 +1,401 @@
+/* StepSolver.java */
+package game;
+
+/**
+ * A proof-number search that looks for forced networks in the step phase,
+ * where every chip is on the board and positions recur often.  It grows a
+ * game tree best-first, always expanding the position that would most
+ * cheaply settle whether one player, the prover, can force a network within
+ * a bounded number of turns.
+ * <p>
+ * Each node of the tree carries two numbers: the proof number, the least
+ * number of unexpanded positions that would have to turn out to be wins for
+ * the prover to prove the node a win, and the disproof number, the least
+ * number that would have to turn out otherwise to disprove it.  A position
+ * in which the player to move can complete a network on this move, found by
+ * {@code Board.findNetworkMove}, is settled without expanding it.
+ * <p>
+ * Settled positions are kept in a cache that outlives the search: a win for
+ * the prover is a win whatever the bound, and a position disproved with some
+ * number of turns left stays disproved for any smaller number.  The next
+ * search, one move later, finds most of its tree already settled.
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+class StepSolver {
+
+  /**
+   * A proof or disproof number too large to reach: the node cannot be
+   * proved (or disproved).
+   */
+  private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+  /**
+   * The base-2 logarithm of the number of cache slots.
+   */
+  private static final int CACHE_BITS = 16;
+
+  /**
+   * The number of expansions between checks of the clock.
+   */
+  private static final int CLOCK_INTERVAL = 64;
+
+  /**
+   * Cache value of a position the prover wins.  Any other nonzero value is
+   * minus one minus the number of turns with which the position was
+   * disproved.
+   */
+  private static final byte PROVED = 1;
+
+  /**
+   * Returns the sum of two proof or disproof numbers, which is INFINITY if
+   * either is.
+   *
+   * @param a     a proof or disproof number.
+   * @param b     another.
+   * @return      their sum, at most INFINITY.
+   */
+  private static int add(int a, int b) {
+    return Math.min(INFINITY, a + b);
+  }
+
+  /**
+   * Returns the number of turns the prover has left at a given distance
+   * from the root, counting the current turn if it is the prover's.  The
+   * prover moves at the even plies.
+   *
+   * @param turns     the prover's turns at the root.
+   * @param ply       the distance, in turns, from the root.
+   * @return          the prover's turns left.
+   */
+  private static int turnsLeft(int turns, int ply) {
+    return turns - (ply + 1) / 2;
+  }
+
+  /**
+   * The board searched.  It is left as it was found.
+   */
+  private final Board board;
+
+  /**
+   * The keys of the positions in the cache.
+   */
+  private final long[] cacheKeys;
+
+  /**
+   * The cached result of each position: 0 for an empty slot, PROVED, or a
+   * disproof as described at PROVED.
+   */
+  private final byte[] cacheValues;
+
+  /**
+   * The nodes of the tree, in parallel arrays indexed by node number.  Node
+   * 0 is the root.  A node's children are numbered consecutively from
+   * {@code firstChild}; {@code childCount} is -1 until the node is
+   * expanded.
+   */
+  private int[] childCount;
+  private int[] disproof;
+  private int[] firstChild;
+  private int[] moves;
+  private int[] parent;
+  private int[] proof;
+
+  /**
+   * The number of tree nodes in use.
+   */
+  private int size;
+
+  /**
+   * The player trying to force a network.  Must be Board.BLACK or
+   * Board.WHITE.
+   */
+  private final int prover;
+
+  /**
+   * The total number of positions expanded by all searches so far.
+   */
+  private long expansions;
+
+  /**
+   * Move buffer for {@code Board.generateMoves} and
+   * {@code Board.findNetworkMove}.
+   */
+  private final int[] buffer;
+
+  /**
+   * Constructor for a solver proving networks for one player on a board.
+   * The tree is allocated by the first search.
+   *
+   * @param board     the board to search.
+   * @param prover    the color of the player trying to force a network.
+   */
+  StepSolver(Board board, int prover) {
+    this.board = board;
+    this.prover = prover;
+    cacheKeys = new long[1 << CACHE_BITS];
+    cacheValues = new byte[1 << CACHE_BITS];
+    buffer = new int[Board.MAX_MOVES];
+  }
+
+  /**
+   * Looks up a position in the cache.
+   *
+   * @param key       the position key, as returned by
+   *                  {@code Board.positionKey}.
+   * @return          the cached value, or 0 if the position is not cached.
+   */
+  private byte cached(long key) {
+    int slot = (int)key & (cacheKeys.length - 1);
+    return cacheKeys[slot] == key ? cacheValues[slot] : 0;
+  }
+
+  /**
+   * Settles or expands a leaf of the tree, which is the current position of
+   * the board.
+   *
+   * @param node      the leaf.
+   * @param color     the color of the player to move.
+   * @param left      the number of turns the prover has left to reach a
+   *                  network, counting this one if it is the prover's.
+   * @return          false if the tree has no room for the leaf's children,
+   *                  in which case the leaf is left unexpanded; true
+   *                  otherwise.
+   */
+  private boolean expand(int node, int color, int left) {
+    expansions++;
+    long key = board.positionKey(color);
+    byte value = node == 0 ? 0 : cached(key);
+    if (value == PROVED) {
+      childCount[node] = 0;
+      setValue(node, 0, INFINITY);
+      return true;
+    } else if (value < 0 && -1 - value >= left) {
+      childCount[node] = 0;
+      setValue(node, INFINITY, 0);
+      return true;
+    }
+    int opp = Board.oppColor(color);
+    int winner = Board.NONE;
+    // the player who just moved loses if it completed both networks
+    if (board.hasNetwork(color)) {
+      winner = color;
+    } else if (board.hasNetwork(opp)) {
+      winner = opp;
+    } else if (board.findNetworkMove(color, buffer) != Board.NO_MOVE) {
+      winner = color;
+    }
+    if (winner == prover) {
+      childCount[node] = 0;
+      setValue(node, 0, INFINITY);
+      return true;
+    } else if (winner != Board.NONE) {
+      childCount[node] = 0;
+      setValue(node, INFINITY, 0);
+      return true;
+    }
+    // the prover's last turn is settled by findNetworkMove alone
+    int n = 0;
+    if (color != prover || left > 1) {
+      n = board.generateMoves(color, buffer);
+    }
+    if (n == 0) {
+      childCount[node] = 0;
+      setValue(node, INFINITY, 0);
+      store(key, (byte)(-1 - left));
+      return true;
+    } else if (size + n > moves.length) {
+      return false;
+    }
+    firstChild[node] = size;
+    childCount[node] = n;
+    for (int i = 0; i < n; i++) {
+      moves[size] = buffer[i];
+      parent[size] = node;
+      childCount[size] = -1;
+      proof[size] = 1;
+      disproof[size] = 1;
+      size++;
+    }
+    update(node, color == prover);
+    return true;
+  }
+
+  /**
+   * Returns the total number of positions expanded by all searches of this
+   * solver so far.
+   *
+   * @return      the cumulative number of expansions.
+   */
+  long getExpansions() {
+    return expansions;
+  }
+
+  /**
+   * Records a node's proof and disproof numbers.
+   *
+   * @param node      the node.
+   * @param pn        its proof number.
+   * @param dn        its disproof number.
+   */
+  private void setValue(int node, int pn, int dn) {
+    proof[node] = pn;
+    disproof[node] = dn;
+  }
+
+  /**
+   * Searches for a network the prover can force, with the prover to move in
+   * the current position of the board.
+   *
+   * @param turns     the greatest number of the prover's own moves a
+   *                  network may take, counting the last, which completes
+   *                  it.
+   * @param maxNodes  the greatest number of nodes the tree may hold.
+   * @param millis    the time allowed, in milliseconds.
+   * @return          the encoded first move of a forced network, or
+   *                  Board.NO_MOVE if none was found in time.
+   */
+  int solve(int turns, int maxNodes, long millis) {
+    if (moves == null || moves.length < maxNodes) {
+      childCount = new int[maxNodes];
+      disproof = new int[maxNodes];
+      firstChild = new int[maxNodes];
+      moves = new int[maxNodes];
+      parent = new int[maxNodes];
+      proof = new int[maxNodes];
+    }
+    int win = board.findNetworkMove(prover, buffer);
+    if (win != Board.NO_MOVE) {
+      return win;
+    }
+    long deadline = System.nanoTime() + millis * 1000000L;
+    size = 1;
+    parent[0] = -1;
+    childCount[0] = -1;
+    int count = 0;
+    expand(0, prover, turns);
+    while (proof[0] != 0 && disproof[0] != 0) {
+      if (++count % CLOCK_INTERVAL == 0 && System.nanoTime() > deadline) {
+        break;
+      }
+      // walk down to the most-proving leaf
+      int node = 0;
+      int color = prover;
+      int ply = 0;
+      while (childCount[node] > 0) {
+        node = selectChild(node, color == prover);
+        board.doMove(color, moves[node]);
+        color = Board.oppColor(color);
+        ply++;
+      }
+      if (!expand(node, color, turnsLeft(turns, ply))) {
+        // the tree is full; give up, leaving the board as it was
+        unwind(node, color);
+        break;
+      }
+      // and back up, updating the numbers of every ancestor
+      while (node != 0) {
+        color = Board.oppColor(color);
+        ply--;
+        board.undoMove(color, moves[node]);
+        node = parent[node];
+        update(node, color == prover);
+        long key = board.positionKey(color);
+        if (proof[node] == 0) {
+          store(key, PROVED);
+        } else if (disproof[node] == 0) {
+          store(key, (byte)(-1 - turnsLeft(turns, ply)));
+        }
+      }
+    }
+    if (proof[0] != 0) {
+      return Board.NO_MOVE;
+    }
+    for (int i = 0; i < childCount[0]; i++) {
+      if (proof[firstChild[0] + i] == 0) {
+        return moves[firstChild[0] + i];
+      }
+    }
+    return Board.NO_MOVE;
+  }
+
+  /**
+   * Returns the child of a node to descend into: the one with the least
+   * proof number at a node where the prover moves, and the one with the
+   * least disproof number where its opponent does.
+   *
+   * @param node      an expanded node.
+   * @param orNode    whether the prover is to move at the node.
+   * @return          the child to descend into.
+   */
+  private int selectChild(int node, boolean orNode) {
+    int[] numbers = orNode ? proof : disproof;
+    int best = firstChild[node];
+    int end = best + childCount[node];
+    for (int c = best + 1; c < end; c++) {
+      if (numbers[c] < numbers[best]) {
+        best = c;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Stores a settled position in the cache, replacing whatever occupied its
+   * slot, unless that was a proof of the same position.
+   *
+   * @param key       the position key, as returned by
+   *                  {@code Board.positionKey}.
+   * @param value     PROVED, or a disproof as described at PROVED.
+   */
+  private void store(long key, byte value) {
+    int slot = (int)key & (cacheKeys.length - 1);
+    if (cacheKeys[slot] == key && cacheValues[slot] == PROVED) {
+      return;
+    }
+    cacheKeys[slot] = key;
+    cacheValues[slot] = value;
+  }
+
+  /**
+   * Takes back the moves leading from the root to a node.
+   *
+   * @param node      a node whose position is on the board.
+   * @param color     the color of the player to move at the node.
+   */
+  private void unwind(int node, int color) {
+    while (node != 0) {
+      color = Board.oppColor(color);
+      board.undoMove(color, moves[node]);
+      node = parent[node];
+    }
+  }
+
+  /**
+   * Recomputes an expanded node's proof and disproof numbers from its
+   * children's.  Where the prover moves, one proved child proves the node
+   * and every child must be disproved to disprove it; where its opponent
+   * moves, the reverse.
+   *
+   * @param node      an expanded node with at least one child.
+   * @param orNode    whether the prover is to move at the node.
+   */
+  private void update(int node, boolean orNode) {
+    int min = INFINITY;
+    int sum = 0;
+    int first = firstChild[node];
+    int end = first + childCount[node];
+    for (int c = first; c < end; c++) {
+      int minOf = orNode ? proof[c] : disproof[c];
+      int sumOf = orNode ? disproof[c] : proof[c];
+      min = Math.min(min, minOf);
+      sum = add(sum, sumOf);
+    }
+    if (orNode) {
+      setValue(node, min, sum);
+    } else {
+      setValue(node, sum, min);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/* TranspositionTable.java */
+package game;
+
+/**
+ * A fixed-size hash table mapping position keys to what the last search of
+ * the position found: its best move, its score, the depth searched, and
+ * whether the score is exact or only a bound.  The {@code Engine} uses it to
+ * try the most promising move first when a position is revisited, whether by
+ * a deeper iteration or by a different move order, and to skip the search of
+ * a position altogether when the stored result is deep enough.
+ * <p>
+ * Entries are always replaced on collision; the table never grows.
+ * <p>
+ * One table may be shared by engines searching on different threads, without
+ * locking.  Each entry is packed into a single long, and the key is stored
+ * XORed with the entry.  A lookup that races with a store on another thread
+ * may read the new entry with the old key, or the reverse; the XOR then no
+ * longer yields the lookup's key, so the torn entry reads as a miss instead
+ * of as a wrong move or score.
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class TranspositionTable {
+
+  /**
+   * Bound type of a score that is the exact value of the position.
+   */
+  static final int EXACT = 0;
+
+  /**
+   * Bound type of a score that is at most the value of the position, stored
+   * after a beta cutoff.
+   */
+  static final int LOWER = 1;
+
+  /**
+   * Bound type of a score that is at least the value of the position, stored
+   * when no move raised alpha.
+   */
+  static final int UPPER = 2;
+
+  /**
+   * The entry returned by {@code find} for a position not in the table.
+   */
+  static final long EMPTY = 0L;
+
+  /**
+   * Returns the bound type of the score in an entry.
+   *
+   * @param entry     an entry returned by {@code find}.
+   * @return          EXACT, LOWER or UPPER.
+   */
+  static int bound(long entry) {
+    return (int)(entry >>> 24) & 3;
+  }
+
+  /**
+   * Returns the remaining search depth at which the score in an entry was
+   * found.
+   *
+   * @param entry     an entry returned by {@code find}.
+   * @return          the depth of the stored score.
+   */
+  static int depth(long entry) {
+    return (int)(entry >>> 16) & 0xFF;
+  }
+
+  /**
+   * Returns the encoded best move in an entry.
+   *
+   * @param entry     an entry returned by {@code find}.
+   * @return          the stored best move.
+   */
+  static int move(long entry) {
+    return ((int)entry & 0xFFFF) - 1;
+  }
+
+  /**
+   * Returns the score in an entry.
+   *
+   * @param entry     an entry returned by {@code find}.
+   * @return          the stored score, for the player to move.
+   */
+  static int score(long entry) {
+    return (int)(entry >> 32);
+  }
+
+  /**
+   * The packed entry in each slot: the best move plus one in bits 0-15 (so
+   * that an empty slot is 0), the depth in bits 16-23, the bound type in
+   * bits 24-25, and the score in bits 32-63.
+   */
+  private final long[] entries;
+
+  /**
+   * The key of the position in each slot, XORed with the slot's entry.
+   */
+  private final long[] keys;
+
+  /**
+   * Mask applied to a key to find its slot.  The table size is a power of
+   * two, so this is the table size minus one.
+   */
+  private final int mask;
+
+  /**
+   * Constructor for an empty table with 2^{@code bits} slots.  Each slot
+   * takes 16 bytes.
+   *
+   * @param bits      the base-2 logarithm of the number of slots.
+   */
+  public TranspositionTable(int bits) {
+    int size = 1 << bits;
+    entries = new long[size];
+    keys = new long[size];
+    mask = size - 1;
+  }
+
+  /**
+   * Returns the entry stored for a position.  Read its fields with
+   * {@code bound}, {@code depth}, {@code move} and {@code score}.
+   *
+   * @param key       the position key, as returned by
+   *                  {@code Board.positionKey}.
+   * @return          the stored entry, or EMPTY if the position is not in
+   *                  this table.
+   */
+  long find(long key) {
+    int slot = (int)key & mask;
+    long entry = entries[slot];
+    if ((keys[slot] ^ entry) != key || move(entry) == Board.NO_MOVE) {
+      return EMPTY;
+    }
+    return entry;
+  }
+
+  /**
+   * Returns the encoded best move recorded for a position, or Board.NO_MOVE
+   * if the position is not in this table.
+   *
+   * @param key       the position key, as returned by
+   *                  {@code Board.positionKey}.
+   * @return          the stored best move, or Board.NO_MOVE if none is
+   *                  stored.
+   */
+  int probe(long key) {
+    return move(find(key));
+  }
+
+  /**
+   * Returns the number of slots in this table.
+   *
+   * @return      the table size.
+   */
+  public int size() {
+    return mask + 1;
+  }
+
+  /**
+   * Records the result of searching a position, replacing whatever occupied
+   * its slot.
+   *
+   * @param key       the position key, as returned by
+   *                  {@code Board.positionKey}.
+   * @param move      the encoded best move found for the position.
+   * @param score     the score found, for the player to move.
+   * @param depth     the remaining search depth of the search.
+   * @param bound     EXACT, LOWER or UPPER.
+   */
+  void store(long key, int move, int score, int depth, int bound) {
+    int slot = (int)key & mask;
+    long entry = (long)score << 32 | (long)bound << 24 |
+        (long)(depth & 0xFF) << 16 | (move + 1);
+    entries[slot] = entry;
+    keys[slot] = key ^ entry;
+  }
+}
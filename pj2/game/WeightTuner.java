@@ -0,0 +1,425 @@
+/* WeightTuner.java */
+package game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import player.Move;
+
+/**
+ * An offline tool that tunes the evaluation weights read by {@code Weights}.
+ * It plays games of self-play in parallel, records the evaluation terms of
+ * every position reached, and labels each position with the outcome of its
+ * game for the player to move.  It then fits the weights by logistic
+ * regression: the probability that the player to move wins is modeled as the
+ * logistic function of the weighted sum of the terms, and the weights that
+ * maximize the likelihood of the observed outcomes are found by Newton's
+ * method, with the work of each step split across all threads.
+ * <p>
+ * Only the ratios between weights matter to the search, so the fitted
+ * weights are scaled to keep the connections weight at its default, 100,
+ * which keeps every score in the units the search is tuned for.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java game.WeightTuner &lt;file&gt; &lt;games&gt; &lt;depth&gt; [threads] [seed]
+ * </pre>
+ * The games are played with the weights in {@code file}, or the defaults if
+ * it does not exist, and the tuned weights are written back to it, so
+ * running the tuner again refines them further.
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class WeightTuner {
+
+  /**
+   * Weight of the L2 penalty on the fitted coefficients, which keeps the fit
+   * stable when a term barely varies.
+   */
+  private static final double L2_PENALTY = 1e-3;
+
+  /**
+   * A game still undecided after this many turns is a draw.
+   */
+  private static final int MAX_GAME_PLIES = 120;
+
+  /**
+   * The maximum number of Newton steps of the fit.
+   */
+  private static final int MAX_STEPS = 50;
+
+  /**
+   * The number of random add moves each side makes at the start of a game,
+   * so that the games differ.
+   */
+  private static final int RANDOM_PLIES = 3;
+
+  /**
+   * The evaluation terms and outcomes of the positions of some games.
+   */
+  private static class Samples {
+
+    /* Instance Fields
+     * features     the terms of sample i at [i * TERMS .. i * TERMS + 3],
+     *              for the player to move
+     * labels       the outcome of sample i for the player to move: 1 for a
+     *              win, 0 for a loss, 0.5 for a draw
+     * size         the number of samples
+     */
+    int[] features = new int[256 * Weights.TERMS];
+    double[] labels = new double[256];
+    int size;
+
+    // Records the terms of a position; its label is set at the end of the
+    // game.
+    void add(int[] terms) {
+      if (size == labels.length) {
+        features = Arrays.copyOf(features, 2 * features.length);
+        labels = Arrays.copyOf(labels, 2 * labels.length);
+      }
+      System.arraycopy(terms, 0, features, size * Weights.TERMS,
+          Weights.TERMS);
+      size++;
+    }
+
+    // Appends another Samples object's samples to this one's.
+    void merge(Samples s) {
+      int n = size + s.size;
+      if (n > labels.length) {
+        features = Arrays.copyOf(features, n * Weights.TERMS);
+        labels = Arrays.copyOf(labels, n);
+      }
+      System.arraycopy(s.features, 0, features, size * Weights.TERMS,
+          s.size * Weights.TERMS);
+      System.arraycopy(s.labels, 0, labels, size, s.size);
+      size = n;
+    }
+  }
+
+  /**
+   * Tunes the weights.  See the class comment for the arguments.
+   *
+   * @param args      the weights file, the number of games, the search
+   *                  depth, and optionally the number of threads and a
+   *                  random seed.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 3) {
+      System.err.println("usage: java game.WeightTuner <file> <games> " +
+          "<depth> [threads] [seed]");
+      System.exit(1);
+    }
+    String fileName = args[0];
+    int games = Integer.parseInt(args[1]);
+    int depth = Integer.parseInt(args[2]);
+    int threads = args.length > 3 ? Integer.parseInt(args[3]) :
+        Runtime.getRuntime().availableProcessors();
+    long seed = args.length > 4 ? Long.parseLong(args[4]) : 61L;
+    Weights start = Weights.load(fileName);
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    long t0 = System.currentTimeMillis();
+    ArrayList<Future<Samples>> results = new ArrayList<Future<Samples>>();
+    for (int g = 0; g < games; g++) {
+      final Random rand = new Random(seed + g);
+      results.add(pool.submit(() -> playGame(start, depth, rand)));
+    }
+    Samples samples = new Samples();
+    for (Future<Samples> f : results) {
+      try {
+        samples.merge(f.get());
+      } catch (ExecutionException ee) {
+        System.err.println("WeightTuner: a game failed");
+        ee.getCause().printStackTrace();
+      }
+    }
+    System.out.println(samples.size + " positions from " + games +
+        " games in " + (System.currentTimeMillis() - t0) / 1000 + " s");
+
+    // the old weights, scaled as well as they can be, are the baseline
+    double[] old = new double[Weights.TERMS];
+    for (int i = 0; i < Weights.TERMS; i++) {
+      old[i] = start.get(i);
+    }
+    double oldScale = fit(pool, threads, samples, old, true);
+    for (int i = 0; i < Weights.TERMS; i++) {
+      old[i] *= oldScale;
+    }
+    double[] beta = new double[Weights.TERMS];
+    fit(pool, threads, samples, beta, false);
+    pool.shutdown();
+    System.out.printf("log loss per position: %.5f before, %.5f after%n",
+        logLoss(samples, old), logLoss(samples, beta));
+
+    if (beta[0] <= 0.0) {
+      System.err.println("WeightTuner: fitted connections weight is not " +
+          "positive; " + fileName + " left unchanged");
+      System.exit(1);
+    }
+    int[] values = new int[Weights.TERMS];
+    for (int i = 0; i < Weights.TERMS; i++) {
+      values[i] = (int)Math.round(beta[i] * Weights.defaults().get(0) /
+          beta[0]);
+    }
+    Weights tuned = new Weights(values);
+    try {
+      tuned.write(fileName, "tuned by WeightTuner on " + samples.size +
+          " positions from " + games + " games at depth " + depth);
+    } catch (IOException ioe) {
+      System.err.println("WeightTuner could not write " + fileName);
+      ioe.printStackTrace();
+      System.exit(1);
+    }
+    System.out.print(tuned);
+  }
+
+  /**
+   * Fits the coefficients of the logistic model by Newton's method.  With
+   * {@code scaleOnly} set, only a common factor of the given coefficients is
+   * fitted; it is returned, and {@code beta} is unchanged.  Otherwise
+   * {@code beta} is fitted in place and 1 is returned.
+   *
+   * @param pool        the threads that share the work of each step.
+   * @param chunks      the number of pieces to split the samples into.
+   * @param samples     the labeled positions.
+   * @param beta        the coefficients, in logits per unit of each term.
+   * @param scaleOnly   whether to fit only a common factor of {@code beta}.
+   * @return            the fitted common factor, or 1.
+   */
+  private static double fit(ExecutorService pool, int chunks,
+      Samples samples, double[] beta, boolean scaleOnly)
+      throws InterruptedException {
+    int n = Weights.TERMS;
+    double scale = scaleOnly ? 0.0 : 1.0;
+    for (int step = 0; step < MAX_STEPS; step++) {
+      double[] b = beta.clone();
+      for (int i = 0; i < n; i++) {
+        b[i] *= scale;
+      }
+      ArrayList<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>();
+      int per = (samples.size + chunks - 1) / chunks;
+      for (int lo = 0; lo < samples.size; lo += per) {
+        final int from = lo;
+        final int to = Math.min(samples.size, lo + per);
+        tasks.add(() -> gradient(samples, b, from, to));
+      }
+      // sums[0..n-1] is the gradient, sums[n..] the Hessian, row by row
+      double[] sums = new double[n + n * n];
+      for (Future<double[]> f : pool.invokeAll(tasks)) {
+        try {
+          double[] part = f.get();
+          for (int i = 0; i < sums.length; i++) {
+            sums[i] += part[i];
+          }
+        } catch (ExecutionException ee) {
+          throw new IllegalStateException(ee.getCause());
+        }
+      }
+      double size = 0;
+      if (scaleOnly) {
+        // project the gradient and Hessian onto the direction beta
+        double g = 0.0;
+        double h = 0.0;
+        for (int i = 0; i < n; i++) {
+          g += sums[i] * beta[i];
+          for (int j = 0; j < n; j++) {
+            h += beta[i] * sums[n + i * n + j] * beta[j];
+          }
+        }
+        double delta = g / h;
+        scale -= delta;
+        size = Math.abs(delta);
+      } else {
+        for (int i = 0; i < n; i++) {
+          sums[i] += L2_PENALTY * beta[i];
+          sums[n + i * n + i] += L2_PENALTY;
+        }
+        double[] delta = solve(Arrays.copyOfRange(sums, n, sums.length),
+            Arrays.copyOf(sums, n), n);
+        for (int i = 0; i < n; i++) {
+          beta[i] -= delta[i];
+          size = Math.max(size, Math.abs(delta[i]));
+        }
+      }
+      if (size < 1e-10) {
+        break;
+      }
+    }
+    return scale;
+  }
+
+  /**
+   * Returns the gradient and Hessian of the negative log-likelihood of the
+   * samples from index {@code from} to {@code to - 1}.
+   *
+   * @param samples     the labeled positions.
+   * @param beta        the coefficients of the model.
+   * @param from        the index of the first sample.
+   * @param to          one past the index of the last sample.
+   * @return            the gradient followed by the Hessian, row by row.
+   */
+  private static double[] gradient(Samples samples, double[] beta, int from,
+      int to) {
+    int n = Weights.TERMS;
+    double[] sums = new double[n + n * n];
+    for (int s = from; s < to; s++) {
+      int base = s * n;
+      double p = predict(samples, beta, s);
+      double err = p - samples.labels[s];
+      double w = p * (1.0 - p);
+      for (int i = 0; i < n; i++) {
+        double xi = samples.features[base + i];
+        sums[i] += err * xi;
+        for (int j = 0; j < n; j++) {
+          sums[n + i * n + j] += w * xi * samples.features[base + j];
+        }
+      }
+    }
+    return sums;
+  }
+
+  /**
+   * Returns the mean negative log-likelihood of the samples under the model:
+   * the cross-entropy between the predicted and observed outcomes.
+   *
+   * @param samples     the labeled positions.
+   * @param beta        the coefficients of the model.
+   * @return            the log loss per sample.
+   */
+  private static double logLoss(Samples samples, double[] beta) {
+    double sum = 0.0;
+    for (int s = 0; s < samples.size; s++) {
+      double p = Math.min(Math.max(predict(samples, beta, s), 1e-12),
+          1 - 1e-12);
+      double y = samples.labels[s];
+      sum -= y * Math.log(p) + (1 - y) * Math.log(1 - p);
+    }
+    return sum / Math.max(1, samples.size);
+  }
+
+  /**
+   * Plays one game of self-play and returns its labeled positions.
+   *
+   * @param weights     the evaluation weights of both players.
+   * @param depth       the search depth of both players.
+   * @param rand        the source of the random opening moves.
+   * @return            the terms and outcome of every position of the game
+   *                    after the random opening.
+   */
+  private static Samples playGame(Weights weights, int depth, Random rand) {
+    Board board = new Board();
+    Engine[] engines = { new Engine(board, Board.WHITE, depth),
+                         new Engine(board, Board.BLACK, depth) };
+    for (Engine e : engines) {
+      e.setWeights(weights);
+    }
+    Samples samples = new Samples();
+    int[] sides = new int[MAX_GAME_PLIES];
+    int[] terms = new int[Weights.TERMS];
+    int[] buf = new int[Board.MAX_MOVES];
+
+    int color = Board.WHITE;
+    int winner = Board.NONE;
+    for (int ply = 0; ply < MAX_GAME_PLIES && winner == Board.NONE; ply++) {
+      Engine engine = engines[color == Board.WHITE ? 0 : 1];
+      if (ply < 2 * RANDOM_PLIES) {
+        int n = board.generateMoves(color, buf);
+        board.doMove(color, buf[rand.nextInt(n)]);
+      } else {
+        Weights.features(board, color, terms);
+        sides[samples.size] = color;
+        samples.add(terms);
+        Move m = engine.getBestMove();
+        if (m == null) {
+          break;
+        }
+        board.doMove(color, m);
+      }
+      // completing both networks at once loses the game
+      if (board.hasNetwork(Board.oppColor(color))) {
+        winner = Board.oppColor(color);
+      } else if (board.hasNetwork(color)) {
+        winner = color;
+      }
+      color = Board.oppColor(color);
+    }
+
+    for (int s = 0; s < samples.size; s++) {
+      if (winner == Board.NONE) {
+        samples.labels[s] = 0.5;
+      } else {
+        samples.labels[s] = winner == sides[s] ? 1.0 : 0.0;
+      }
+    }
+    return samples;
+  }
+
+  /**
+   * Returns the modeled probability that the player to move in a sample
+   * wins.
+   *
+   * @param samples     the labeled positions.
+   * @param beta        the coefficients of the model.
+   * @param s           the index of the sample.
+   * @return            the logistic function of the weighted terms.
+   */
+  private static double predict(Samples samples, double[] beta, int s) {
+    double z = 0.0;
+    for (int i = 0; i < beta.length; i++) {
+      z += beta[i] * samples.features[s * beta.length + i];
+    }
+    return 1.0 / (1.0 + Math.exp(-z));
+  }
+
+  /**
+   * Solves the linear system {@code a x = b} by Gaussian elimination with
+   * partial pivoting.  Both arrays are overwritten.
+   *
+   * @param a     the n x n matrix, row by row.
+   * @param b     the right-hand side.
+   * @param n     the size of the system.
+   * @return      the solution x.
+   */
+  private static double[] solve(double[] a, double[] b, int n) {
+    for (int col = 0; col < n; col++) {
+      int pivot = col;
+      for (int row = col + 1; row < n; row++) {
+        if (Math.abs(a[row * n + col]) > Math.abs(a[pivot * n + col])) {
+          pivot = row;
+        }
+      }
+      for (int j = 0; j < n; j++) {
+        double t = a[col * n + j];
+        a[col * n + j] = a[pivot * n + j];
+        a[pivot * n + j] = t;
+      }
+      double t = b[col];
+      b[col] = b[pivot];
+      b[pivot] = t;
+      for (int row = col + 1; row < n; row++) {
+        double f = a[row * n + col] / a[col * n + col];
+        for (int j = col; j < n; j++) {
+          a[row * n + j] -= f * a[col * n + j];
+        }
+        b[row] -= f * b[col];
+      }
+    }
+    double[] x = new double[n];
+    for (int row = n - 1; row >= 0; row--) {
+      double sum = b[row];
+      for (int j = row + 1; j < n; j++) {
+        sum -= a[row * n + j] * x[j];
+      }
+      x[row] = sum / a[row * n + row];
+    }
+    return x;
+  }
+}
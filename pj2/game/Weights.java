@@ -0,0 +1,203 @@
+/* Weights.java */
+package game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The weights of the terms of the static evaluation used by {@code Engine}.
+ * Each term is the difference between a player's and its opponent's value of
+ * some feature of the board; the score of a position is the weighted sum of
+ * the terms.  Weights are immutable, so one object may be shared by engines
+ * on different threads.
+ * <p>
+ * Weights are read from a small text file written by {@code WeightTuner}.
+ * Each line holds a term name and an integer weight; blank lines and lines
+ * starting with '#' are ignored, and a term missing from the file keeps its
+ * default weight.
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class Weights {
+
+  /**
+   * The number of evaluation terms.
+   */
+  static final int TERMS = 4;
+
+  /**
+   * The name of each term in a weights file, in the order of the arrays
+   * passed to {@code features}.
+   */
+  static final String[] NAMES = { "connections", "longestPath",
+                                  "validMoves", "goalChips" };
+
+  /**
+   * The hand-picked weights used when no weights file is present.
+   */
+  private static final int[] DEFAULTS = { 100, 26, 20, 20 };
+
+  /**
+   * Returns the default weights.
+   *
+   * @return      a new {@code Weights} holding the default weights.
+   */
+  public static Weights defaults() {
+    return new Weights(DEFAULTS);
+  }
+
+  /**
+   * Writes the evaluation terms of a position, from a given player's point
+   * of view, into {@code features}.
+   *
+   * @param board       the board holding the position.
+   * @param side        the color of the player.  Must be Board.BLACK or
+   *                    Board.WHITE.
+   * @param features    an array of length at least TERMS to fill.
+   */
+  static void features(Board board, int side, int[] features) {
+    int opp = Board.oppColor(side);
+    features[0] = board.getNumConnections(side) -
+        board.getNumConnections(opp);
+    features[1] = board.longestPath(side) - board.longestPath(opp);
+    features[2] = board.countValidMoves(side) - board.countValidMoves(opp);
+    features[3] = board.chipsInGoal(side) - board.chipsInGoal(opp);
+  }
+
+  /**
+   * Reads a weights file.  A missing file yields the default weights, so
+   * that players work without one.  A file that cannot be read or parsed is
+   * reported and also yields the default weights.
+   *
+   * @param fileName    the name of the weights file.
+   * @return            the weights stored in the file, or the defaults.
+   */
+  public static Weights load(String fileName) {
+    Path path = Paths.get(fileName);
+    if (!Files.isRegularFile(path)) {
+      return defaults();
+    }
+    int[] values = DEFAULTS.clone();
+    try (BufferedReader in = Files.newBufferedReader(path)) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split("\\s+");
+        int term = indexOf(fields[0]);
+        if (fields.length != 2 || term < 0) {
+          System.err.println("Weights.load(): bad line in " + fileName +
+              ": " + line);
+          return defaults();
+        }
+        values[term] = Integer.parseInt(fields[1]);
+      }
+    } catch (IOException | NumberFormatException e) {
+      System.err.println("Weights.load() could not read " + fileName);
+      e.printStackTrace();
+      return defaults();
+    }
+    return new Weights(values);
+  }
+
+  /**
+   * Returns the index of a term name.
+   *
+   * @param name      a term name.
+   * @return          the index of the term in NAMES, or -1 if there is none.
+   */
+  private static int indexOf(String name) {
+    for (int i = 0; i < NAMES.length; i++) {
+      if (NAMES[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The weight of each term, in the order of NAMES.
+   */
+  private final int[] values;
+
+  /**
+   * Constructor for a set of weights.
+   *
+   * @param values    the weight of each term, in the order of NAMES.  The
+   *                  array is copied.
+   */
+  Weights(int[] values) {
+    this.values = values.clone();
+  }
+
+  /**
+   * Returns the score of a position from a given player's point of view: a
+   * more positive score favors the player and a more negative one its
+   * opponent.  The score is the dot product of these weights with the terms
+   * computed by {@code features}, so the search and {@code WeightTuner} see
+   * the same terms.  Every term is maintained incrementally by the board, so
+   * this is cheap enough to call at every leaf of a search.
+   *
+   * @param board     the board holding the position.
+   * @param side      the color of the player.  Must be Board.BLACK or
+   *                  Board.WHITE.
+   * @param terms     an array of length at least TERMS, overwritten with the
+   *                  terms of the position.
+   * @return          the weighted sum of the evaluation terms.
+   */
+  int evaluate(Board board, int side, int[] terms) {
+    features(board, side, terms);
+    int score = 0;
+    for (int i = 0; i < TERMS; i++) {
+      score += values[i] * terms[i];
+    }
+    return score;
+  }
+
+  /**
+   * Returns the weight of a term.
+   *
+   * @param term      the index of the term in NAMES.
+   * @return          the weight of the term.
+   */
+  int get(int term) {
+    return values[term];
+  }
+
+  /**
+   * Returns a string representation of these weights, one term per line, in
+   * the format of a weights file.
+   *
+   * @return      the weights as the contents of a weights file.
+   */
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder();
+    for (int i = 0; i < TERMS; i++) {
+      s.append(NAMES[i] + " " + values[i] + "\n");
+    }
+    return s.toString();
+  }
+
+  /**
+   * Writes these weights to a weights file.
+   *
+   * @param fileName    the name of the file to write.
+   * @param comment     a line of text to record at the top of the file.
+   * @throws IOException  if the file cannot be written.
+   */
+  void write(String fileName, String comment) throws IOException {
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(
+        Paths.get(fileName)))) {
+      out.println("# " + comment);
+      out.print(toString());
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/* IntList.java */
+package list;
+
+import java.util.Arrays;
+
+/**
+ * A mutable list of ints backed by an array, for use where a {@code DList}
+ * of boxed integers would allocate a node per item.  Adding to or removing
+ * from the back takes constant (amortized) time, so an {@code IntList} also
+ * serves as a stack: a path being searched can be extended with
+ * {@code push} and backed up with {@code pop} or {@code truncate}, with no
+ * copying.
+ */
+public class IntList {
+
+  /* Instance Fields
+   * items is the backing array.  Only items[0 .. size - 1] are in the list.
+   * size is the number of items in the list.
+   */
+  private int[] items;
+  private int size;
+
+  /**
+   *  IntList() constructs an empty IntList.
+   */
+  public IntList() {
+    this(16);
+  }
+
+  /**
+   *  IntList() constructs an empty IntList with room for a given number of
+   *  items before it needs to grow.
+   *
+   *  @param capacity the number of items the list can hold without growing.
+   */
+  public IntList(int capacity) {
+    items = new int[Math.max(1, capacity)];
+    size = 0;
+  }
+
+  /**
+   *  back() returns the item at the back of this IntList.
+   *
+   *  @return the last item.
+   *  @throws IndexOutOfBoundsException if the list is empty.
+   *
+   *  Performance:  runs in O(1) time.
+   */
+  public int back() {
+    return get(size - 1);
+  }
+
+  /**
+   *  clear() removes every item from this IntList, keeping its capacity.
+   *
+   *  Performance:  runs in O(1) time.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   *  contains() returns true if an item is in this IntList.
+   *
+   *  @param item the item sought.
+   *  @return true if some item of the list equals item.
+   *
+   *  Performance:  runs in O(n) time, where n is the length of the list.
+   */
+  public boolean contains(int item) {
+    for (int i = 0; i < size; i++) {
+      if (items[i] == item) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   *  get() returns the item at a given index of this IntList.
+   *
+   *  @param index the index of the item, from 0 (the front) to length() - 1.
+   *  @return the item at index.
+   *  @throws IndexOutOfBoundsException if index is out of range.
+   *
+   *  Performance:  runs in O(1) time.
+   */
+  public int get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + ", length " +
+          size);
+    }
+    return items[index];
+  }
+
+  /**
+   *  isEmpty() returns true if this IntList is empty, false otherwise.
+   *
+   *  @return true if this IntList is empty, false otherwise.
+   *
+   *  Performance:  runs in O(1) time.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   *  length() returns the length of this IntList.
+   *
+   *  @return the length of this IntList.
+   *
+   *  Performance:  runs in O(1) time.
+   */
+  public int length() {
+    return size;
+  }
+
+  /**
+   *  pop() removes the item at the back of this IntList and returns it.
+   *
+   *  @return the item removed.
+   *  @throws IndexOutOfBoundsException if the list is empty.
+   *
+   *  Performance:  runs in O(1) time.
+   */
+  public int pop() {
+    int item = back();
+    size--;
+    return item;
+  }
+
+  /**
+   *  push() inserts an item at the back of this IntList.
+   *
+   *  @param item is the item to be inserted.
+   *
+   *  Performance:  runs in O(1) amortized time.
+   */
+  public void push(int item) {
+    if (size == items.length) {
+      items = Arrays.copyOf(items, 2 * size);
+    }
+    items[size++] = item;
+  }
+
+  /**
+   *  set() replaces the item at a given index of this IntList.
+   *
+   *  @param index the index of the item, from 0 (the front) to length() - 1.
+   *  @param item the new item.
+   *  @throws IndexOutOfBoundsException if index is out of range.
+   *
+   *  Performance:  runs in O(1) time.
+   */
+  public void set(int index, int item) {
+    get(index);
+    items[index] = item;
+  }
+
+  /**
+   *  toArray() returns a new array holding the items of this IntList, front
+   *  to back.
+   *
+   *  @return an array of length length().
+   *
+   *  Performance:  runs in O(n) time, where n is the length of the list.
+   */
+  public int[] toArray() {
+    return Arrays.copyOf(items, size);
+  }
+
+  /**
+   *  toString() returns a String representation of this IntList.
+   *
+   *  @return a String representation of this IntList.
+   *
+   *  Performance:  runs in O(n) time, where n is the length of the list.
+   */
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder("[  ");
+    for (int i = 0; i < size; i++) {
+      s.append(items[i] + "  ");
+    }
+    return s.append("]").toString();
+  }
+
+  /**
+   *  truncate() removes every item past the first length items of this
+   *  IntList.  It does nothing if the list is no longer than length.
+   *
+   *  @param length the number of items to keep.
+   *
+   *  Performance:  runs in O(1) time.
+   */
+  public void truncate(int length) {
+    if (length < 0) {
+      throw new IndexOutOfBoundsException("length " + length);
+    }
+    size = Math.min(size, length);
+  }
+}
@@ -0,0 +1,389 @@
+/* AnalysisServer.java */
+package player;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import game.Board;
+import game.Engine;
+import game.Position;
+import game.TranspositionTable;
+import game.Weights;
+
+/**
+ * A long-running service that analyzes batches of Network positions.  It
+ * listens on a local TCP port or Unix domain socket, runs every position on
+ * one pool of worker threads, and gives all of them one shared
+ * transposition table, so that what a search learns about a position carries
+ * over to later searches of it, whichever game or client sent them.
+ * <p>
+ * Each request line holds a position, the side to move, and optionally a
+ * search depth no greater than the server's:
+ * <pre>
+ *   &lt;position&gt; &lt;b|w&gt; [depth]
+ * </pre>
+ * The position is 64 characters in the format of {@code Position.parse}.
+ * A blank line ends a batch.  The server then answers each line of the batch
+ * in order with the best move, its score for the side to move, the depth
+ * searched, and the number of positions visited:
+ * <pre>
+ *   &lt;move&gt; &lt;score&gt; &lt;depth&gt; &lt;nodes&gt;
+ * </pre>
+ * followed by a blank line.  An add move is written as the two digits xy,
+ * a step move as the square left and the square reached, as in "15-04", and
+ * no move as "-".  A line that cannot be analyzed is answered with "error"
+ * and a reason.  The line "stats" returns the throughput of each worker, and
+ * "quit" closes the connection.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java player.AnalysisServer &lt;port | socket&gt; [threads] [depth] [bits]
+ * </pre>
+ * A number is a TCP port on the loopback address; anything else is the path
+ * of a Unix domain socket.  The table has 2^bits slots.
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class AnalysisServer {
+
+  /**
+   * The search depth used when none is given.
+   */
+  private static final int DEFAULT_DEPTH = 3;
+
+  /**
+   * The base-2 logarithm of the shared table size used when none is given.
+   * 2^22 slots take 64 MB.
+   */
+  private static final int DEFAULT_TABLE_BITS = 22;
+
+  /**
+   * The evaluation weights of every worker, read like those of a
+   * {@code MachinePlayer}.
+   */
+  private static final Weights WEIGHTS =
+      Weights.load(System.getProperty("network.weights", "weights.txt"));
+
+  /**
+   * One worker thread's board, engines and throughput counters.  Only the
+   * worker's own thread analyzes with it; the counters are volatile so that
+   * {@code report} may read them from any thread.
+   */
+  private static class Worker {
+
+    /* Instance Fields
+     * board        the board every position is set up on
+     * engines      the engines searching for black and white, in that order
+     * name         the name of the worker's thread
+     * nanos        the total time spent analyzing
+     * nodes        positions visited by the searches
+     * positions    the number of positions analyzed
+     */
+    final Board board = new Board();
+    final Engine[] engines;
+    final String name;
+    volatile long nanos;
+    volatile long nodes;
+    volatile long positions;
+
+    // Creates a worker whose engines search up to depth and share table.
+    Worker(String name, int depth, TranspositionTable table) {
+      this.name = name;
+      engines = new Engine[] {
+        new Engine(board, Board.BLACK, depth, table),
+        new Engine(board, Board.WHITE, depth, table)
+      };
+      for (Engine e : engines) {
+        e.setWeights(WEIGHTS);
+      }
+    }
+
+    // Searches position with side to move and returns the answer line.
+    String analyze(Position position, int side, int depth) {
+      long t0 = System.nanoTime();
+      board.setPosition(position);
+      if (board.hasNetwork(Board.BLACK) || board.hasNetwork(Board.WHITE)) {
+        return "error the game is over";
+      }
+      Engine e = engines[side == Board.BLACK ? 0 : 1];
+      long before = e.getNodes();
+      Move m = e.analyze(depth);
+      long visited = e.getNodes() - before;
+      nodes += visited;
+      positions++;
+      nanos += System.nanoTime() - t0;
+      return format(m) + " " + e.getLastScore() + " " +
+          e.getDepthReached() + " " + visited;
+    }
+
+    // Returns a one-line summary of this worker's throughput.
+    String report() {
+      double seconds = nanos / 1e9;
+      return String.format("%s: %d positions in %.1f s, %.1f positions/s, " +
+          "%.0f nodes/s", name, positions, seconds,
+          seconds == 0 ? 0.0 : positions / seconds,
+          seconds == 0 ? 0.0 : nodes / seconds);
+    }
+  }
+
+  /**
+   * Returns the text form of a move used in answers.
+   *
+   * @param m     a move, or null for no move.
+   * @return      "xy" for an add move, "xy-xy" (from, to) for a step move,
+   *              or "-" for no move.
+   */
+  private static String format(Move m) {
+    if (m == null || m.moveKind == Move.QUIT) {
+      return "-";
+    } else if (m.moveKind == Move.ADD) {
+      return "" + m.x1 + m.y1;
+    }
+    return "" + m.x2 + m.y2 + "-" + m.x1 + m.y1;
+  }
+
+  /**
+   * Starts the server.  See the class comment for the arguments.
+   *
+   * @param args      the port or socket path, and optionally the number of
+   *                  worker threads, the maximum search depth, and the
+   *                  base-2 logarithm of the table size.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("usage: java player.AnalysisServer <port | socket> " +
+          "[threads] [depth] [bits]");
+      System.exit(1);
+    }
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) :
+        Runtime.getRuntime().availableProcessors();
+    int depth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DEPTH;
+    int bits = args.length > 3 ? Integer.parseInt(args[3]) :
+        DEFAULT_TABLE_BITS;
+
+    ServerSocketChannel server;
+    if (args[0].matches("\\d+")) {
+      server = ServerSocketChannel.open();
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+          Integer.parseInt(args[0])));
+    } else {
+      Path path = Paths.get(args[0]);
+      Files.deleteIfExists(path);
+      server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+      server.bind(UnixDomainSocketAddress.of(path));
+      path.toFile().deleteOnExit();
+    }
+
+    AnalysisServer service = new AnalysisServer(threads, depth, bits);
+    Runtime.getRuntime().addShutdownHook(new Thread(() ->
+        System.out.println(service.report())));
+    System.out.println("analyzing on " + server.getLocalAddress() + " with " +
+        threads + " workers to depth " + depth);
+    service.serve(server);
+  }
+
+  /**
+   * The maximum search depth of any request.
+   */
+  private final int depth;
+
+  /**
+   * The worker threads that run every analysis.
+   */
+  private final ExecutorService pool;
+
+  /**
+   * The transposition table shared by every worker.
+   */
+  private final TranspositionTable table;
+
+  /**
+   * The worker of each pool thread, created on the thread's first analysis.
+   */
+  private final ThreadLocal<Worker> worker;
+
+  /**
+   * Every worker created so far, for {@code report}.
+   */
+  private final List<Worker> workers;
+
+  /**
+   * Constructor for a service with its own worker pool and table.
+   *
+   * @param threads     the number of worker threads.
+   * @param depth       the maximum search depth of any request.
+   * @param bits        the base-2 logarithm of the number of table slots.
+   */
+  public AnalysisServer(int threads, int depth, int bits) {
+    this.depth = depth;
+    table = new TranspositionTable(bits);
+    workers = new CopyOnWriteArrayList<Worker>();
+    worker = ThreadLocal.withInitial(() -> {
+      Worker w = new Worker(Thread.currentThread().getName(), depth, table);
+      workers.add(w);
+      return w;
+    });
+    AtomicInteger count = new AtomicInteger();
+    pool = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "worker-" + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Analyzes one request line on the calling worker thread.
+   *
+   * @param line      a request line, as described in the class comment.
+   * @return          the answer line.
+   */
+  private String analyze(String line) {
+    String[] fields = line.trim().split("\\s+");
+    if (fields.length < 2 || fields.length > 3) {
+      return "error expected <position> <b|w> [depth]";
+    }
+    try {
+      Position position = Position.parse(fields[0]);
+      int side;
+      if (fields[1].equalsIgnoreCase("b")) {
+        side = Board.BLACK;
+      } else if (fields[1].equalsIgnoreCase("w")) {
+        side = Board.WHITE;
+      } else {
+        return "error the side to move must be b or w";
+      }
+      int d = fields.length > 2 ? Integer.parseInt(fields[2]) : depth;
+      if (d < 1 || d > depth) {
+        return "error the depth must be from 1 to " + depth;
+      }
+      return worker.get().analyze(position, side, d);
+    } catch (IllegalArgumentException iae) {
+      return "error " + iae.getMessage();
+    }
+  }
+
+  /**
+   * Analyzes a batch of request lines on the worker pool and waits for the
+   * answers.
+   *
+   * @param lines     the request lines.
+   * @return          the answer lines, in the order of the requests.
+   * @throws InterruptedException  if the calling thread is interrupted while
+   *                               waiting.
+   */
+  public List<String> analyzeBatch(List<String> lines)
+      throws InterruptedException {
+    List<Future<String>> futures = new ArrayList<Future<String>>();
+    for (String line : lines) {
+      futures.add(pool.submit(() -> analyze(line)));
+    }
+    List<String> answers = new ArrayList<String>();
+    for (Future<String> f : futures) {
+      try {
+        answers.add(f.get());
+      } catch (ExecutionException ee) {
+        System.err.println("AnalysisServer: an analysis failed");
+        ee.getCause().printStackTrace();
+        answers.add("error internal failure");
+      }
+    }
+    return answers;
+  }
+
+  /**
+   * Reads batches from one client and writes their answers until the
+   * client quits or disconnects.
+   *
+   * @param client    the client's connection.
+   */
+  private void handle(SocketChannel client) {
+    try (SocketChannel c = client;
+         BufferedReader in = new BufferedReader(new InputStreamReader(
+             Channels.newInputStream(c), StandardCharsets.US_ASCII));
+         PrintWriter out = new PrintWriter(Channels.newWriter(c,
+             StandardCharsets.US_ASCII.newEncoder(), -1))) {
+      List<String> batch = new ArrayList<String>();
+      String line;
+      while ((line = in.readLine()) != null) {
+        line = line.trim();
+        if (batch.isEmpty() && line.equals("quit")) {
+          break;
+        } else if (batch.isEmpty() && line.equals("stats")) {
+          out.print(report() + "\n\n");
+          out.flush();
+        } else if (!line.isEmpty()) {
+          batch.add(line);
+        } else if (!batch.isEmpty()) {
+          for (String answer : analyzeBatch(batch)) {
+            out.print(answer + "\n");
+          }
+          out.print("\n");
+          out.flush();
+          batch.clear();
+        }
+      }
+    } catch (IOException ioe) {
+      System.err.println("AnalysisServer: lost a client");
+      ioe.printStackTrace();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the throughput of every worker, one per line, and the total.
+   *
+   * @return      a report of the work done so far.
+   */
+  public String report() {
+    StringBuilder s = new StringBuilder();
+    long positions = 0;
+    long nodes = 0;
+    for (Worker w : workers) {
+      s.append(w.report() + "\n");
+      positions += w.positions;
+      nodes += w.nodes;
+    }
+    s.append(String.format("total: %d positions, %d nodes, %d table slots",
+        positions, nodes, table.size()));
+    return s.toString();
+  }
+
+  /**
+   * Accepts clients until the server socket is closed, serving each on its
+   * own thread.
+   *
+   * @param server    a bound server socket.
+   * @throws IOException  if accepting a client fails.
+   */
+  public void serve(ServerSocketChannel server) throws IOException {
+    while (server.isOpen()) {
+      SocketChannel client = server.accept();
+      Thread t = new Thread(() -> handle(client), "client");
+      t.setDaemon(true);
+      t.start();
+    }
+  }
+}
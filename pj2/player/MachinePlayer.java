@@ -3,12 +3,43 @@ package player;
 
 import game.Board;
 import game.Engine;
+import game.PositionBook;
+import game.Weights;
 
 /**
  *  An implementation of an automatic Network player.  Keeps track of moves
  *  made by both players.  Can select a move for itself.
  */
 public class MachinePlayer extends Player {
+
+  /* Class Fields
+   * ENDGAMES     solved endgame positions shared by every machine player,
+   *              read from the file named by the system property
+   *              "network.endgames" (default "endgames.bin")
+   * OPENINGS     the opening book shared by every machine player, read from
+   *              the file named by the system property "network.openings"
+   *              (default "openings.bin")
+   * PONDER       whether machine players think on the opponent's time, set by
+   *              the system property "network.ponder" (default false)
+   * SLOW_MOVE    searches taking at least this many milliseconds are reported
+   *              on standard error, set by the system property
+   *              "network.slowmove" (default 0, meaning none are); pondering
+   *              searches are never reported
+   * WEIGHTS      the evaluation weights shared by every machine player, read
+   *              from the file named by the system property "network.weights"
+   *              (default "weights.txt")
+   * The book files are optional and are memory-mapped, not parsed.  Build
+   * them with game.BookGenerator.  The weights file is optional too; tune it
+   * with game.WeightTuner.
+   */
+  private static final PositionBook ENDGAMES =
+      PositionBook.load(System.getProperty("network.endgames", "endgames.bin"));
+  private static final PositionBook OPENINGS =
+      PositionBook.load(System.getProperty("network.openings", "openings.bin"));
+  private static final boolean PONDER = Boolean.getBoolean("network.ponder");
+  private static final long SLOW_MOVE = Long.getLong("network.slowmove", 0L);
+  private static final Weights WEIGHTS =
+      Weights.load(System.getProperty("network.weights", "weights.txt"));
   
   /* Instance Fields
    * ai           the engine that will determine this player's moves
@@ -32,6 +63,15 @@ public class MachinePlayer extends Player {
     side = color == 0 ? Board.BLACK: Board.WHITE;
     oppSide = Board.oppColor(side);
     ai = new Engine(new Board(), side, searchDepth);
+    ai.setBooks(OPENINGS, ENDGAMES);
+    ai.setWeights(WEIGHTS);
+    if (SLOW_MOVE > 0) {
+      ai.setSearchListener(stats -> {
+        if (stats.getNanos() >= SLOW_MOVE * 1000000L) {
+          System.err.println("MachinePlayer: slow move: " + stats);
+        }
+      });
+    }
   } 
 
   // Returns a new move by "this" player.  Internally records the move (updates
@@ -40,6 +80,9 @@ public class MachinePlayer extends Player {
   public Move chooseMove() {
     Move m = ai.getBestMove(); 
     ai.board.doMove(side, m);
+    if (PONDER) {
+      ai.startPondering();
+    }
     return m;
   }
 
@@ -50,6 +93,7 @@ public class MachinePlayer extends Player {
   // player to solve.
   @Override
   public boolean forceMove(Move m) {
+    ai.stopPondering();
     boolean moveValid = ai.board.isValidMove(side, m);
     if (moveValid) {
       ai.board.doMove(side, m);
@@ -63,6 +107,7 @@ public class MachinePlayer extends Player {
   // player.  This method allows your opponents to inform you of their moves.
   @Override
   public boolean opponentMove(Move m) {
+    ai.stopPondering();
     boolean moveValid = ai.board.isValidMove(oppSide, m);
     if (moveValid) {
       ai.board.doMove(oppSide, m);
@@ -0,0 +1,126 @@
+/* SearchBenchmark.java */
+package player;
+
+import game.Board;
+import game.Engine;
+
+/**
+ * Fixed-position search benchmarks for {@code Engine}, in the style of a JMH
+ * average-time benchmark: each position is searched from a cold engine for a
+ * number of untimed warmup iterations, then for a number of measured
+ * iterations, and the mean time per search and nodes per second are
+ * reported.  Every iteration also checks that the search returns the same
+ * move, so a benchmark run doubles as a regression test of search results.
+ * <p>
+ * The position rows time the alpha-beta search alone, through
+ * {@code Engine.analyze}.  The step-solver row times {@code getBestMove} on
+ * the step-phase position, where the engine tries its step-phase solver
+ * before searching; its nodes per second count the solver's expansions
+ * together with any search nodes.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java player.SearchBenchmark [depth] [warmup] [iterations]
+ * </pre>
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class SearchBenchmark {
+
+  /**
+   * Names of the benchmark positions, parallel to {@code POSITIONS}.
+   */
+  private static final String[] NAMES = { "opening", "middlegame",
+                                          "step" };
+
+  /**
+   * The benchmark positions, each given as the add moves that reach it,
+   * alternating white and black from an empty board.  Each move is written
+   * as the two digits xy.
+   */
+  private static final String[] POSITIONS = {
+    "22 24 15 31",
+    "22 24 15 31 52 53 42 27 25 57 46 45",
+    "22 24 15 31 52 53 42 27 25 57 46 45 74 63 44 14 54 12 56 65"
+  };
+
+  /**
+   * Runs every benchmark.  See the class comment for the arguments.
+   *
+   * @param args      optionally the search depth and the numbers of warmup
+   *                  and measured iterations.
+   */
+  public static void main(String[] args) {
+    int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+    int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    System.out.printf("%-12s %5s %12s %14s  %s%n", "position", "depth",
+        "ms/op", "nodes/s", "move");
+    for (int i = 0; i < POSITIONS.length; i++) {
+      run(NAMES[i], POSITIONS[i], depth, warmup, iterations, false);
+    }
+    run("step-solver", POSITIONS[POSITIONS.length - 1], depth, warmup,
+        iterations, true);
+  }
+
+  /**
+   * Returns a new board holding a benchmark position.
+   *
+   * @param position    the add moves reaching the position.
+   * @return            the board after the moves, with white to move next
+   *                    if the number of moves is even.
+   */
+  private static Board setUp(String position) {
+    Board board = new Board();
+    int color = Board.WHITE;
+    for (String square : position.trim().split("\\s+")) {
+      Move m = new Move(square.charAt(0) - '0', square.charAt(1) - '0');
+      if (!board.isValidMove(color, m)) {
+        throw new IllegalArgumentException("invalid benchmark move " + m);
+      }
+      board.doMove(color, m);
+      color = Board.oppColor(color);
+    }
+    return board;
+  }
+
+  /**
+   * Benchmarks a search of one position and prints the result.
+   *
+   * @param name        the name of the position.
+   * @param position    the add moves reaching the position.
+   * @param depth       the search depth.
+   * @param warmup      the number of untimed iterations.
+   * @param iterations  the number of timed iterations.
+   * @param solver      whether to time {@code getBestMove}, counting the
+   *                    step-phase solver's expansions, instead of the
+   *                    search alone.
+   */
+  private static void run(String name, String position, int depth,
+      int warmup, int iterations, boolean solver) {
+    int color = position.trim().split("\\s+").length % 2 == 0 ?
+        Board.WHITE : Board.BLACK;
+    String expected = null;
+    long nanos = 0;
+    long nodes = 0;
+    for (int i = 0; i < warmup + iterations; i++) {
+      Engine engine = new Engine(setUp(position), color, depth);
+      long t0 = System.nanoTime();
+      Move m = solver ? engine.getBestMove() : engine.analyze(depth);
+      long elapsed = System.nanoTime() - t0;
+      if (expected == null) {
+        expected = String.valueOf(m);
+      } else if (!expected.equals(String.valueOf(m))) {
+        throw new IllegalStateException(name + ": search returned " + m +
+            ", earlier " + expected);
+      }
+      if (i >= warmup) {
+        nanos += elapsed;
+        nodes += engine.getNodes() + engine.getSolverNodes();
+      }
+    }
+    System.out.printf("%-12s %5d %12.3f %14.0f  %s%n", name, depth,
+        nanos / 1e6 / iterations, nodes / (nanos / 1e9), expected);
+  }
+}
@@ -0,0 +1,251 @@
+/* SelfPlay.java */
+package player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import game.Board;
+import game.Engine;
+
+/**
+ * A headless tournament between two {@code MachinePlayer} configurations.
+ * Games run in parallel, alternate colors, and start from a few random add
+ * moves so that they differ.  For each configuration it reports wins, the
+ * average search depth, nodes per second, the transposition table hit rate,
+ * the step-phase solver's share of the time, and percentiles of the time
+ * taken per move.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java player.SelfPlay &lt;games&gt; &lt;depthA&gt; &lt;depthB&gt; [threads] [seed]
+ * </pre>
+ * Both configurations use the position books, if present; point the
+ * network.openings and network.endgames properties at missing files to
+ * measure the bare search.
+ *
+ * @author Jason Goldfine-Middleton
+ * @version 1.0, 19 October 2026
+ */
+public class SelfPlay {
+
+  /**
+   * A game still undecided after this many turns is a draw.
+   */
+  private static final int MAX_PLIES = 200;
+
+  /**
+   * The number of random add moves each side makes before the machine
+   * players take over.
+   */
+  private static final int RANDOM_PLIES = 2;
+
+  /**
+   * Measurements for one configuration, summed over any number of games.
+   */
+  private static class Stats {
+
+    /* Instance Fields
+     * depthSum     the sum of the depths reached by the searched moves
+     * hits         transposition table lookups that found a move
+     * latencies    the time taken by each move, in nanoseconds
+     * moves        the number of moves made (the length of latencies)
+     * nanos        the total time spent choosing moves
+     * nodes        positions visited by the searches
+     * probes       transposition table lookups
+     * results      wins, draws and losses, in that order
+     * searched     the number of moves that came from a search, not a book
+     * solverNanos  the part of nanos spent in the step-phase solver
+     * solverNodes  positions expanded by the step-phase solver
+     */
+    long depthSum;
+    long hits;
+    long[] latencies = new long[64];
+    int moves;
+    long nanos;
+    long nodes;
+    long probes;
+    int[] results = new int[3];
+    int searched;
+    long solverNanos;
+    long solverNodes;
+
+    // Records the time taken by a move and whether it was searched.
+    void addMove(long nanoTime, int depth) {
+      if (moves == latencies.length) {
+        latencies = Arrays.copyOf(latencies, 2 * moves);
+      }
+      latencies[moves++] = nanoTime;
+      nanos += nanoTime;
+      if (depth > 0) {
+        depthSum += depth;
+        searched++;
+      }
+    }
+
+    // Adds the counters of an engine at the end of a game.
+    void addEngine(Engine e) {
+      nodes += e.getNodes();
+      hits += e.getTableHits();
+      probes += e.getTableProbes();
+      solverNanos += e.getSolverNanos();
+      solverNodes += e.getSolverNodes();
+    }
+
+    // Adds another Stats object's measurements to this one's.
+    void merge(Stats s) {
+      for (int i = 0; i < s.moves; i++) {
+        addMove(s.latencies[i], 0);
+      }
+      depthSum += s.depthSum;
+      searched += s.searched;
+      nodes += s.nodes;
+      hits += s.hits;
+      probes += s.probes;
+      solverNanos += s.solverNanos;
+      solverNodes += s.solverNodes;
+      for (int i = 0; i < results.length; i++) {
+        results[i] += s.results[i];
+      }
+    }
+
+    // Returns the latency at percentile p (0 to 100), in milliseconds.
+    double percentile(long[] sorted, double p) {
+      if (moves == 0) {
+        return 0.0;
+      }
+      int index = (int)Math.ceil(p / 100.0 * moves) - 1;
+      return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    // Returns a multi-line report of these measurements.
+    String report(String name) {
+      long[] sorted = Arrays.copyOf(latencies, moves);
+      Arrays.sort(sorted);
+      // the search's rate excludes the time the solver took
+      double seconds = (nanos - solverNanos) / 1e9;
+      return String.format("%s: %d wins, %d draws, %d losses%n" +
+          "  avg depth %.2f, %.0f nodes/s, TT hit rate %.1f%%%n" +
+          "  step solver %d nodes, %.1f%% of time%n" +
+          "  ms/move p50 %.2f, p90 %.2f, p99 %.2f, max %.2f",
+          name, results[0], results[1], results[2],
+          searched == 0 ? 0.0 : (double)depthSum / searched,
+          seconds <= 0 ? 0.0 : nodes / seconds,
+          probes == 0 ? 0.0 : 100.0 * hits / probes, solverNodes,
+          nanos == 0 ? 0.0 : 100.0 * solverNanos / nanos,
+          percentile(sorted, 50), percentile(sorted, 90),
+          percentile(sorted, 99), percentile(sorted, 100));
+    }
+  }
+
+  /**
+   * Runs the tournament.  See the class comment for the arguments.
+   *
+   * @param args      the number of games, the two search depths, and
+   *                  optionally the number of threads and a random seed.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 3) {
+      System.err.println("usage: java player.SelfPlay <games> <depthA> " +
+          "<depthB> [threads] [seed]");
+      System.exit(1);
+    }
+    int games = Integer.parseInt(args[0]);
+    int[] depths = { Integer.parseInt(args[1]), Integer.parseInt(args[2]) };
+    int threads = args.length > 3 ? Integer.parseInt(args[3]) :
+        Runtime.getRuntime().availableProcessors();
+    long seed = args.length > 4 ? Long.parseLong(args[4]) : 61L;
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    ArrayList<Future<Stats[]>> results = new ArrayList<Future<Stats[]>>();
+    long start = System.nanoTime();
+    for (int g = 0; g < games; g++) {
+      final int game = g;
+      results.add(pool.submit(() -> playGame(depths, game % 2 == 0,
+          new Random(seed + game))));
+    }
+    Stats[] total = { new Stats(), new Stats() };
+    for (Future<Stats[]> f : results) {
+      try {
+        Stats[] s = f.get();
+        total[0].merge(s[0]);
+        total[1].merge(s[1]);
+      } catch (ExecutionException ee) {
+        System.err.println("SelfPlay: a game failed");
+        ee.getCause().printStackTrace();
+      }
+    }
+    pool.shutdown();
+    System.out.printf("%d games on %d threads in %.1f s%n", games, threads,
+        (System.nanoTime() - start) / 1e9);
+    System.out.println(total[0].report("A (depth " + depths[0] + ")"));
+    System.out.println(total[1].report("B (depth " + depths[1] + ")"));
+  }
+
+  /**
+   * Plays one game between the two configurations and returns the
+   * measurements of each.
+   *
+   * @param depths      the search depths of configurations A and B.
+   * @param aIsWhite    whether configuration A plays white.
+   * @param rand        the source of the random opening moves.
+   * @return            the measurements of A and B, in that order.
+   */
+  private static Stats[] playGame(int[] depths, boolean aIsWhite,
+      Random rand) {
+    Stats[] stats = { new Stats(), new Stats() };
+    MachinePlayer[] players = new MachinePlayer[2];
+    // players[i] and stats[i] belong to configuration i; white is color 1
+    players[0] = new MachinePlayer(aIsWhite ? 1 : 0, depths[0]);
+    players[1] = new MachinePlayer(aIsWhite ? 0 : 1, depths[1]);
+    int white = aIsWhite ? 0 : 1;
+    Board referee = new Board();
+
+    int turn = white;
+    for (int ply = 0; ply < 2 * RANDOM_PLIES; ply++) {
+      int color = turn == white ? Board.WHITE : Board.BLACK;
+      Move m;
+      do {
+        // any square off the goal lines of the 8x8 board
+        m = new Move(1 + rand.nextInt(6), 1 + rand.nextInt(6));
+      } while (!referee.isValidMove(color, m));
+      referee.doMove(color, m);
+      players[turn].forceMove(m);
+      players[1 - turn].opponentMove(m);
+      turn = 1 - turn;
+    }
+
+    int winner = -1;
+    for (int ply = 0; ply < MAX_PLIES && winner < 0; ply++) {
+      int color = turn == white ? Board.WHITE : Board.BLACK;
+      long t0 = System.nanoTime();
+      Move m = players[turn].chooseMove();
+      stats[turn].addMove(System.nanoTime() - t0,
+          players[turn].ai.getDepthReached());
+      if (m == null || !referee.isValidMove(color, m)) {
+        System.err.println("SelfPlay: illegal move " + m + "\n" + referee);
+        winner = 1 - turn;
+        break;
+      }
+      referee.doMove(color, m);
+      players[1 - turn].opponentMove(m);
+      // completing both networks at once loses the game
+      if (referee.hasNetwork(Board.oppColor(color))) {
+        winner = 1 - turn;
+      } else if (referee.hasNetwork(color)) {
+        winner = turn;
+      }
+      turn = 1 - turn;
+    }
+
+    for (int i = 0; i < 2; i++) {
+      stats[i].addEngine(players[i].ai);
+      stats[i].results[winner < 0 ? 1 : (winner == i ? 0 : 2)]++;
+    }
+    return stats;
+  }
+}
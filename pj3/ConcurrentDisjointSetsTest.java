@@ -0,0 +1,230 @@
+/* ConcurrentDisjointSetsTest.java */
+
+/**
+ * The ConcurrentDisjointSetsTest class stress-tests the ConcurrentDisjointSets
+ * class with many threads, then measures its throughput as the number of
+ * threads grows.
+ */
+
+import java.util.*;
+import set.*;
+
+public class ConcurrentDisjointSetsTest {
+
+  private static final int ELEMENTS = 1 << 16;
+  private static final int PAIRS = 1 << 17;
+  private static final int ROUNDS = 20;
+  private static final int[] THREADS = { 1, 2, 4, 8 };
+
+  private static boolean passed = true;
+
+  /**
+   * randomPairs() returns "count" random pairs of elements, as two arrays.
+   * If "parity" is true, both elements of every pair have the same parity,
+   * so no even element is ever united with an odd one.
+   */
+  private static int[][] randomPairs(Random random, int count,
+                                     boolean parity) {
+    int[][] pairs = new int[2][count];
+    for (int i = 0; i < count; i++) {
+      pairs[0][i] = random.nextInt(ELEMENTS);
+      pairs[1][i] = random.nextInt(ELEMENTS);
+      if (parity && (pairs[0][i] + pairs[1][i]) % 2 != 0) {
+        pairs[1][i] ^= 1;
+      }
+    }
+    return pairs;
+  }
+
+  /**
+   * runThreads() runs one copy of "task" on each of "count" threads, passing
+   * each its thread number, and waits for them all to finish.
+   */
+  private static void runThreads(int count, final ThreadTask task) {
+    Thread[] threads = new Thread[count];
+    for (int t = 0; t < count; t++) {
+      final int number = t;
+      threads[t] = new Thread(new Runnable() {
+        public void run() {
+          task.run(number);
+        }
+      });
+      threads[t].start();
+    }
+    for (int t = 0; t < count; t++) {
+      try {
+        threads[t].join();
+      } catch (InterruptedException e) {
+        System.err.println("Interrupted waiting for a test thread.");
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * check() records and reports a failure if "condition" is false.
+   */
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      System.out.println("  FAILED:  " + message);
+      passed = false;
+    }
+  }
+
+  /**
+   * unionTest() unites the same random pairs with several threads at once
+   * and with one DisjointSets, and checks that both produce the same sets
+   * and that exactly one union() call reported each merge.
+   */
+  private static void unionTest(final int threadCount, long seed) {
+    final int[][] pairs = randomPairs(new Random(seed), PAIRS, false);
+    final ConcurrentDisjointSets sets = new ConcurrentDisjointSets(ELEMENTS);
+    final int[] merges = new int[threadCount];
+    runThreads(threadCount, new ThreadTask() {
+      public void run(int t) {
+        for (int i = t; i < PAIRS; i += threadCount) {
+          if (sets.union(pairs[0][i], pairs[1][i])) {
+            merges[t]++;
+          }
+        }
+      }
+    });
+
+    DisjointSets expected = new DisjointSets(ELEMENTS);
+    int expectedMerges = 0;
+    for (int i = 0; i < PAIRS; i++) {
+      int root1 = expected.find(pairs[0][i]);
+      int root2 = expected.find(pairs[1][i]);
+      if (root1 != root2) {
+        expected.union(root1, root2);
+        expectedMerges++;
+      }
+    }
+
+    int totalMerges = 0;
+    for (int m : merges) {
+      totalMerges += m;
+    }
+    check(totalMerges == expectedMerges, threadCount + " threads reported " +
+          totalMerges + " merges; expected " + expectedMerges);
+    // two partitions are equal if each element's set agrees with that of a
+    // fixed representative of its expected set
+    int[] representative = new int[ELEMENTS];
+    Arrays.fill(representative, -1);
+    for (int x = 0; x < ELEMENTS; x++) {
+      int root = expected.find(x);
+      if (representative[root] < 0) {
+        representative[root] = x;
+      }
+      if (!sets.sameSet(x, representative[root])) {
+        check(false, threadCount + " threads: " + x + " not with " +
+              representative[root]);
+        return;
+      }
+    }
+    Set<Integer> roots = new HashSet<Integer>();
+    for (int x = 0; x < ELEMENTS; x++) {
+      roots.add(sets.find(x));
+    }
+    check(roots.size() == ELEMENTS - expectedMerges, threadCount +
+          " threads left " + roots.size() + " sets; expected " +
+          (ELEMENTS - expectedMerges));
+  }
+
+  /**
+   * sameSetTest() unites pairs of same-parity elements on half the threads
+   * while the other half repeatedly ask sameSet() about pairs.  A pair seen
+   * in the same set must never be seen apart later, and no even element may
+   * ever be seen with an odd one.
+   */
+  private static void sameSetTest(final int threadCount, long seed) {
+    final int[][] pairs = randomPairs(new Random(seed), PAIRS, true);
+    final int[][] queries = randomPairs(new Random(seed + 1), 1 << 12,
+                                        false);
+    final ConcurrentDisjointSets sets = new ConcurrentDisjointSets(ELEMENTS);
+    final int writers = Math.max(1, threadCount / 2);
+    final boolean[] failed = new boolean[threadCount];
+    runThreads(threadCount, new ThreadTask() {
+      public void run(int t) {
+        if (t < writers) {
+          for (int i = t; i < PAIRS; i += writers) {
+            sets.union(pairs[0][i], pairs[1][i]);
+          }
+          return;
+        }
+        boolean[] seen = new boolean[queries[0].length];
+        for (int pass = 0; pass < 8; pass++) {
+          for (int i = 0; i < seen.length; i++) {
+            int x = queries[0][i];
+            int y = queries[1][i];
+            boolean same = sets.sameSet(x, y);
+            if ((seen[i] && !same) || (same && (x + y) % 2 != 0)) {
+              failed[t] = true;
+            }
+            seen[i] |= same;
+          }
+        }
+      }
+    });
+    for (int t = 0; t < threadCount; t++) {
+      check(!failed[t], threadCount + " threads: reader " + t +
+            " saw sameSet() go back or join the wrong parities");
+    }
+  }
+
+  /**
+   * throughput() returns the number of millions of operations per second
+   * that "threadCount" threads achieve together, each doing an even mix of
+   * union() and sameSet() on random elements of a fresh set of sets.
+   */
+  private static double throughput(final int threadCount) {
+    final int[][] pairs = randomPairs(new Random(threadCount), PAIRS, false);
+    final ConcurrentDisjointSets sets = new ConcurrentDisjointSets(ELEMENTS);
+    long start = System.nanoTime();
+    runThreads(threadCount, new ThreadTask() {
+      public void run(int t) {
+        for (int i = 0; i < PAIRS; i++) {
+          int j = (i + t * (PAIRS / threadCount)) % PAIRS;
+          if ((i & 1) == 0) {
+            sets.union(pairs[0][j], pairs[1][j]);
+          } else {
+            sets.sameSet(pairs[1][j], pairs[0][j]);
+          }
+        }
+      }
+    });
+    long nanos = System.nanoTime() - start;
+    return 1000.0 * threadCount * PAIRS / nanos;
+  }
+
+  public static void main(String[] args) {
+    System.out.println("Running concurrent disjoint sets stress test.");
+    for (int round = 0; round < ROUNDS; round++) {
+      for (int threadCount : THREADS) {
+        unionTest(threadCount, round);
+        sameSetTest(threadCount, round);
+      }
+    }
+    System.out.println(passed ? "All stress tests passed." :
+                       "Some stress tests FAILED.");
+
+    System.out.println("Measuring throughput (" + ELEMENTS + " elements, " +
+                       "half union(), half sameSet()).");
+    for (int threadCount : THREADS) {
+      throughput(threadCount);                              // warm up the JIT
+      double best = 0.0;
+      for (int trial = 0; trial < 5; trial++) {
+        best = Math.max(best, throughput(threadCount));
+      }
+      System.out.printf("  %d thread(s):  %.1f million operations/second%n",
+                        threadCount, best);
+    }
+  }
+}
+
+/**
+ * A ThreadTask is the work of one numbered test thread.
+ */
+interface ThreadTask {
+  void run(int threadNumber);
+}
@@ -0,0 +1,308 @@
+/* ConcurrentWUGraphTest.java */
+
+/**
+ * The ConcurrentWUGraphTest class stress-tests the ConcurrentWUGraph class
+ * with writers changing the graph while readers take snapshots and walk
+ * neighbor lists, then measures how its read throughput grows with the
+ * number of reading threads.
+ */
+
+import graph.*;
+import java.util.*;
+
+public class ConcurrentWUGraphTest {
+
+  private static final int VERTICES = 1 << 8;
+  private static final int CHANGES = 1 << 14;
+  private static final int READS = 1 << 18;
+  private static final int ROUNDS = 5;
+  private static final int[] THREADS = { 1, 2, 4, 8 };
+
+  private static final Integer[] VERTEX = new Integer[VERTICES];
+
+  private static boolean passed = true;
+
+  /**
+   * A ThreadTask is the work of one numbered test thread.
+   */
+  private interface ThreadTask {
+    void run(int threadNumber);
+  }
+
+  /**
+   * runThreads() runs one copy of "task" on each of "count" threads, passing
+   * each its thread number, and waits for them all to finish.
+   */
+  private static void runThreads(int count, final ThreadTask task) {
+    Thread[] threads = new Thread[count];
+    for (int t = 0; t < count; t++) {
+      final int number = t;
+      threads[t] = new Thread(new Runnable() {
+        public void run() {
+          task.run(number);
+        }
+      });
+      threads[t].start();
+    }
+    for (int t = 0; t < count; t++) {
+      try {
+        threads[t].join();
+      } catch (InterruptedException e) {
+        System.err.println("Interrupted waiting for a test thread.");
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * check() records and reports a failure if "condition" is false.
+   */
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      System.out.println("  FAILED:  " + message);
+      passed = false;
+    }
+  }
+
+  /**
+   * consistent() returns true if "csr" is a single version of a graph whose
+   * edges each join two vertices with the same remainder modulo "writers":
+   * every edge is listed by both its endpoints with the same weight, and
+   * edgeCount() agrees with the lists.
+   */
+  private static boolean consistent(CSRGraph csr, int writers) {
+    int edges = 0;
+    for (int v = 0; v < csr.vertexCount(); v++) {
+      int owner = (Integer) csr.vertex(v) % writers;
+      for (int e = csr.edgeStart(v); e < csr.edgeEnd(v); e++) {
+        int u = csr.target(e);
+        if ((Integer) csr.vertex(u) % writers != owner ||
+            csr.weight(u, v) != csr.weight(e)) {
+          return false;
+        }
+        if (u >= v) {
+          edges++;
+        }
+      }
+    }
+    return edges == csr.edgeCount();
+  }
+
+  /**
+   * stressTest() runs "threadCount" writers, each adding and removing
+   * random edges and vertices among the vertices it owns, alongside
+   * "threadCount" readers.  Each reader checks that every snapshot is
+   * consistent and that getNeighbors() never lists an edge between two
+   * writers' vertices.  When all are done, the graph must hold exactly the
+   * edges the writers' records say it should.
+   */
+  private static void stressTest(final int threadCount, final long seed) {
+    final ConcurrentWUGraph g = new ConcurrentWUGraph();
+    for (Integer vertex : VERTEX) {
+      g.addVertex(vertex);
+    }
+    // writer t owns vertices whose numbers are t modulo threadCount, and
+    // alone writes their rows of "present" and "weights"
+    final boolean[] present = new boolean[VERTICES];
+    final int[][] weights = new int[VERTICES][VERTICES];
+    Arrays.fill(present, true);
+    final boolean[] done = new boolean[threadCount];
+    final boolean[] failed = new boolean[2 * threadCount];
+    runThreads(2 * threadCount, new ThreadTask() {
+      public void run(int t) {
+        try {
+          if (t < threadCount) {
+            write(t);
+          } else {
+            read(t);
+          }
+        } catch (RuntimeException e) {
+          failed[t] = true;
+        }
+      }
+
+      private void write(int t) {
+        try {
+          change(t);
+        } finally {
+          synchronized (done) {
+            done[t] = true;
+          }
+        }
+      }
+
+      private void change(int t) {
+        Random random = new Random(seed * THREADS.length + t);
+        int owned = (VERTICES - t + threadCount - 1) / threadCount;
+        for (int i = 0; i < CHANGES; i++) {
+          int u = t + threadCount * random.nextInt(owned);
+          int v = t + threadCount * random.nextInt(owned);
+          int choice = random.nextInt(16);
+          if (choice < 10) {
+            int weight = 1 + random.nextInt(100);
+            g.addEdge(VERTEX[u], VERTEX[v], weight);
+            if (present[u] && present[v]) {
+              weights[u][v] = weight;
+              weights[v][u] = weight;
+            }
+          } else if (choice < 14) {
+            g.removeEdge(VERTEX[u], VERTEX[v]);
+            weights[u][v] = 0;
+            weights[v][u] = 0;
+          } else if (choice == 14) {
+            g.removeVertex(VERTEX[u]);
+            present[u] = false;
+            for (int x = t; x < VERTICES; x += threadCount) {
+              weights[u][x] = 0;
+              weights[x][u] = 0;
+            }
+          } else {
+            g.addVertex(VERTEX[u]);
+            present[u] = true;
+          }
+        }
+      }
+
+      private void read(int t) {
+        Random random = new Random(-seed - t - 1);
+        while (true) {
+          synchronized (done) {
+            boolean finished = true;
+            for (boolean d : done) {
+              finished &= d;
+            }
+            if (finished) {
+              return;
+            }
+          }
+          if (!consistent(g.snapshot(), threadCount)) {
+            failed[t] = true;
+          }
+          for (int i = 0; i < VERTICES; i++) {
+            Integer vertex = VERTEX[random.nextInt(VERTICES)];
+            Neighbors neigh = g.getNeighbors(vertex);
+            if (neigh == null) {
+              continue;
+            }
+            if (neigh.neighborList.length != neigh.weightList.length) {
+              failed[t] = true;
+            }
+            for (int j = 0; j < neigh.neighborList.length; j++) {
+              int neighbor = (Integer) neigh.neighborList[j];
+              if ((neighbor - vertex) % threadCount != 0 ||
+                  neigh.weightList[j] < 1 || neigh.weightList[j] > 100) {
+                failed[t] = true;
+              }
+            }
+          }
+        }
+      }
+    });
+
+    for (int t = 0; t < 2 * threadCount; t++) {
+      check(!failed[t], threadCount + " writers: " +
+            (t < threadCount ? "writer " : "reader ") + t +
+            " threw an exception or saw an inconsistent graph");
+    }
+    int vertexCount = 0;
+    int edgeCount = 0;
+    for (int u = 0; u < VERTICES; u++) {
+      if (present[u]) {
+        vertexCount++;
+      }
+      check(g.isVertex(VERTEX[u]) == present[u], threadCount +
+            " writers: vertex " + u + " is wrongly present or absent");
+      for (int v = u; v < VERTICES; v++) {
+        if (weights[u][v] != 0) {
+          edgeCount++;
+        }
+        if (g.weight(VERTEX[u], VERTEX[v]) != weights[u][v]) {
+          check(false, threadCount + " writers: edge (" + u + ", " + v +
+                ") has weight " + g.weight(VERTEX[u], VERTEX[v]) +
+                "; expected " + weights[u][v]);
+          return;
+        }
+      }
+    }
+    check(g.vertexCount() == vertexCount, threadCount + " writers left " +
+          g.vertexCount() + " vertices; expected " + vertexCount);
+    check(g.edgeCount() == edgeCount, threadCount + " writers left " +
+          g.edgeCount() + " edges; expected " + edgeCount);
+  }
+
+  /**
+   * throughput() returns the number of millions of operations per second
+   * that "threadCount" threads achieve together, each doing a mix of
+   * isEdge(), weight(), and degree() on random vertices of "g".
+   */
+  private static double throughput(final WUGraph g, final int threadCount) {
+    final int[] pairs = new int[READS];
+    Random random = new Random(threadCount);
+    for (int i = 0; i < READS; i++) {
+      pairs[i] = random.nextInt(VERTICES * VERTICES);
+    }
+    final int[] sums = new int[threadCount];
+    long start = System.nanoTime();
+    runThreads(threadCount, new ThreadTask() {
+      public void run(int t) {
+        int sum = 0;
+        for (int i = 0; i < READS; i++) {
+          int j = pairs[(i + t * (READS / threadCount)) % READS];
+          Integer u = VERTEX[j / VERTICES];
+          Integer v = VERTEX[j % VERTICES];
+          switch (i % 3) {
+          case 0:
+            sum += g.isEdge(u, v) ? 1 : 0;
+            break;
+          case 1:
+            sum += g.weight(u, v);
+            break;
+          default:
+            sum += g.degree(u);
+            break;
+          }
+        }
+        sums[t] = sum;                     // keep the reads from being elided
+      }
+    });
+    long nanos = System.nanoTime() - start;
+    return 1000.0 * threadCount * READS / nanos;
+  }
+
+  public static void main(String[] args) {
+    for (int i = 0; i < VERTICES; i++) {
+      VERTEX[i] = i;
+    }
+
+    System.out.println("Running concurrent graph stress test.");
+    for (int round = 0; round < ROUNDS; round++) {
+      for (int threadCount : THREADS) {
+        stressTest(threadCount, round);
+      }
+    }
+    System.out.println(passed ? "All stress tests passed." :
+                       "Some stress tests FAILED.");
+
+    ConcurrentWUGraph g = new ConcurrentWUGraph();
+    for (Integer vertex : VERTEX) {
+      g.addVertex(vertex);
+    }
+    Random random = new Random(0);
+    for (int i = 0; i < 8 * VERTICES; i++) {
+      g.addEdge(VERTEX[random.nextInt(VERTICES)],
+                VERTEX[random.nextInt(VERTICES)], 1 + random.nextInt(100));
+    }
+    System.out.println("Measuring read throughput (" + VERTICES +
+                       " vertices, " + g.edgeCount() + " edges, " +
+                       "isEdge(), weight(), and degree()).");
+    for (int threadCount : THREADS) {
+      throughput(g, threadCount);                           // warm up the JIT
+      double best = 0.0;
+      for (int trial = 0; trial < 5; trial++) {
+        best = Math.max(best, throughput(g, threadCount));
+      }
+      System.out.printf("  %d thread(s):  %.1f million operations/second%n",
+                        threadCount, best);
+    }
+  }
+}
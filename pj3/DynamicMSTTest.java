@@ -0,0 +1,131 @@
+/* DynamicMSTTest.java */
+
+/**
+ * The DynamicMSTTest class tests the DynamicMST class against Kruskal's
+ * algorithm, through a long series of random edits to a graph.
+ */
+
+import graph.*;
+import graphalg.*;
+import java.util.*;
+
+public class DynamicMSTTest {
+
+  private static final int VERTICES = 60;
+  private static final int EDITS = 20000;
+  private static final int CHECK_EVERY = 50;
+  private static final int MAXINT = 100;
+
+  /**
+   * totalWeight() returns the total weight of the edges of a graph with no
+   * self-edges.
+   */
+  private static long totalWeight(WUGraph g) {
+    long total = 0;
+    Object[] vertices = g.getVertices();
+    for (int i = 0; i < vertices.length; i++) {
+      Neighbors neigh = g.getNeighbors(vertices[i]);
+      if (neigh == null) {
+        continue;
+      }
+      for (int j = 0; j < neigh.neighborList.length; j++) {
+        total += neigh.weightList[j];
+      }
+    }
+    return total / 2;
+  }
+
+  /**
+   * check() compares the dynamic forest with the one Kruskal's algorithm
+   * finds for the same graph, and returns the number of discrepancies.
+   */
+  private static int check(WUGraph g, DynamicMST mst, int edit) {
+    int errors = 0;
+    WUGraph kruskal = Kruskal.minSpanTree(g);
+    WUGraph forest = mst.minSpanTree();
+    if (mst.totalWeight() != totalWeight(kruskal)) {
+      System.out.println("After edit " + edit + ", the forest weighs " +
+                         mst.totalWeight() + "; Kruskal's weighs " +
+                         totalWeight(kruskal) + ".");
+      errors++;
+    }
+    if (totalWeight(forest) != mst.totalWeight() ||
+        forest.edgeCount() != mst.treeEdgeCount()) {
+      System.out.println("After edit " + edit + ", minSpanTree() does not " +
+                         "match totalWeight() and treeEdgeCount().");
+      errors++;
+    }
+    if (mst.treeEdgeCount() != kruskal.edgeCount()) {
+      System.out.println("After edit " + edit + ", the forest has " +
+                         mst.treeEdgeCount() + " edges; Kruskal's has " +
+                         kruskal.edgeCount() + ".");
+      errors++;
+    }
+    Object[] vertices = forest.getVertices();
+    for (int i = 0; i < vertices.length; i++) {
+      Neighbors neigh = forest.getNeighbors(vertices[i]);
+      if (neigh == null) {
+        continue;
+      }
+      for (int j = 0; j < neigh.neighborList.length; j++) {
+        if (!g.isEdge(vertices[i], neigh.neighborList[j]) ||
+            !mst.isTreeEdge(vertices[i], neigh.neighborList[j])) {
+          System.out.println("After edit " + edit + ", a forest edge is " +
+                             "not a tree edge of the graph.");
+          errors++;
+        }
+      }
+    }
+    return errors;
+  }
+
+  public static void main(String[] args) {
+    Random random = new Random(6);
+    WUGraph g = new WUGraph();
+    List<Object> vertices = new ArrayList<Object>();
+    for (int i = 0; i < VERTICES; i++) {
+      Object vertex = new Object();
+      vertices.add(vertex);
+      g.addVertex(vertex);
+    }
+    for (int i = 0; i < VERTICES; i++) {
+      g.addEdge(vertices.get(i), vertices.get(random.nextInt(VERTICES)),
+                random.nextInt(MAXINT));
+    }
+
+    System.out.println("Attaching a dynamic MST to a graph with " +
+                       g.vertexCount() + " vertices and " + g.edgeCount() +
+                       " edges.");
+    DynamicMST mst = new DynamicMST(g);
+    int errors = check(g, mst, 0);
+
+    System.out.println("Making " + EDITS + " random edits.");
+    for (int edit = 1; edit <= EDITS && errors == 0; edit++) {
+      Object u = vertices.get(random.nextInt(vertices.size()));
+      Object v = vertices.get(random.nextInt(vertices.size()));
+      int r = random.nextInt(100);
+      if (r < 45) {
+        mst.addEdge(u, v, random.nextInt(2 * MAXINT) - MAXINT);
+      } else if (r < 95) {
+        mst.removeEdge(u, v);
+      } else if (r < 97) {
+        mst.removeVertex(u);
+        vertices.remove(u);
+      } else {
+        Object vertex = new Object();
+        vertices.add(vertex);
+        mst.addVertex(vertex);
+      }
+      if (edit % CHECK_EVERY == 0) {
+        errors += check(g, mst, edit);
+      }
+    }
+
+    if (errors == 0) {
+      System.out.println("The dynamic MST matched Kruskal's algorithm " +
+                         "after every check.");
+    } else {
+      System.out.println("The dynamic MST is wrong.");
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/* EdgeTableTest.java */
+
+/**
+ * The EdgeTableTest class tests the EdgeTable class against a HashMap,
+ * through a long series of random insertions and removals that make the
+ * table grow and leave long probe runs for removals to repair.
+ */
+
+import graph.*;
+import java.util.*;
+
+public class EdgeTableTest {
+
+  private static final int VERTICES = 300;
+  private static final int OPERATIONS = 400000;
+  private static final int CHECK_EVERY = 20000;
+
+  private static int errors = 0;
+
+  /**
+   * expect() reports a discrepancy if "actual" differs from "expected".
+   */
+  private static void expect(String what, long actual, long expected) {
+    if (actual != expected) {
+      System.out.println(what + " returned " + actual + "; expected " +
+                         expected + ".");
+      errors++;
+    }
+  }
+
+  /**
+   * check() compares every possible edge of the table with the map.
+   */
+  private static void check(EdgeTable table, HashMap<Long, Integer> map) {
+    expect("size()", table.size(), map.size());
+    for (int u = 0; u < VERTICES; u++) {
+      for (int v = u; v < VERTICES; v++) {
+        Integer weight = map.get(EdgeTable.key(u, v));
+        expect("isEdge(" + v + ", " + u + ")", table.isEdge(v, u) ? 1 : 0,
+               weight == null ? 0 : 1);
+        expect("weight(" + u + ", " + v + ")", table.weight(u, v),
+               weight == null ? 0 : weight);
+      }
+    }
+  }
+
+  public static void main(String[] args) {
+    Random random = new Random(42);
+
+    System.out.println("Testing key().");
+    expect("key(3, 5)", EdgeTable.key(3, 5), (3L << 32) | 5);
+    expect("key(5, 3)", EdgeTable.key(5, 3), EdgeTable.key(3, 5));
+    expect("key(7, 7)", EdgeTable.key(7, 7), (7L << 32) | 7);
+
+    System.out.println("Making " + OPERATIONS + " random insertions and " +
+                       "removals, starting from an empty table.");
+    EdgeTable table = new EdgeTable();
+    HashMap<Long, Integer> map = new HashMap<Long, Integer>();
+    for (int i = 1; i <= OPERATIONS && errors == 0; i++) {
+      int u = random.nextInt(VERTICES);
+      int v = random.nextInt(VERTICES);
+      // insert more often than remove in the first half, so the table
+      // grows, and less often in the second half, so it shrinks
+      boolean insert = random.nextInt(4) < (i <= OPERATIONS / 2 ? 3 : 1);
+      if (insert) {
+        int weight = random.nextInt(200) - 100;
+        expect("put(" + u + ", " + v + ")", table.put(u, v, weight) ? 1 : 0,
+               map.put(EdgeTable.key(u, v), weight) == null ? 1 : 0);
+      } else {
+        expect("remove(" + u + ", " + v + ")", table.remove(v, u) ? 1 : 0,
+               map.remove(EdgeTable.key(u, v)) == null ? 0 : 1);
+      }
+      if (i % CHECK_EVERY == 0) {
+        check(table, map);
+      }
+    }
+
+    System.out.println("Removing every edge.");
+    for (Long key : new ArrayList<Long>(map.keySet())) {
+      int u = (int) (key >>> 32);
+      int v = (int) (long) key;
+      expect("remove(" + u + ", " + v + ")", table.remove(u, v) ? 1 : 0, 1);
+      map.remove(key);
+    }
+    check(table, map);
+
+    System.out.println("Filling a table presized for " + VERTICES +
+                       " edges.");
+    table = new EdgeTable(VERTICES);
+    for (int u = 0; u < VERTICES; u++) {
+      table.put(u, (u * 7) % VERTICES, u);
+      map.put(EdgeTable.key(u, (u * 7) % VERTICES), u);
+    }
+    check(table, map);
+
+    if (errors == 0) {
+      System.out.println("EdgeTable matched the HashMap after every " +
+                         "operation.");
+    } else {
+      System.out.println("EdgeTable is wrong.");
+    }
+  }
+}
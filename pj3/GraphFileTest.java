@@ -0,0 +1,219 @@
+/* GraphFileTest.java */
+
+/**
+ * The GraphFileTest class tests the GraphFile and MappedGraph classes:  it
+ * saves graphs, reads them back through memory mapping, and checks that
+ * damaged files are rejected.
+ */
+
+import graph.*;
+import java.io.*;
+import java.util.*;
+
+public class GraphFileTest {
+
+  private static int errors = 0;
+
+  /**
+   * fail() reports a failed check.
+   */
+  private static void fail(String message) {
+    System.out.println("  " + message);
+    errors++;
+  }
+
+  /**
+   * roundTrip() saves g, opens the file, and checks that the MappedGraph and
+   * the WUGraph read back from it match g, with String.valueOf() of each of
+   * g's vertices as the vertex names.  Every vertex must be found by name,
+   * and every pair of vertices must be an edge of the file, with the same
+   * weight, exactly when it is an edge of g.
+   */
+  private static void roundTrip(WUGraph g, File file) throws IOException {
+    System.out.println("Saving and reopening a graph with " +
+                       g.vertexCount() + " vertices and " + g.edgeCount() +
+                       " edges.");
+    GraphFile.write(g, file.getPath());
+    MappedGraph mapped = GraphFile.open(file.getPath());
+    if (mapped.vertexCount() != g.vertexCount() ||
+        mapped.edgeCount() != g.edgeCount()) {
+      fail("The file has " + mapped.vertexCount() + " vertices and " +
+           mapped.edgeCount() + " edges.");
+      return;
+    }
+    Object[] vertices = g.getVertices();
+    Map<String, Object> byName = new HashMap<String, Object>();
+    for (Object vertex : vertices) {
+      byName.put(String.valueOf(vertex), vertex);
+    }
+    for (int v = 0; v < mapped.vertexCount(); v++) {
+      String name = mapped.vertexName(v);
+      Object vertex = byName.get(name);
+      for (long e = mapped.edgeStart(v); e < mapped.edgeEnd(v); e++) {
+        Object neighbor = byName.get(mapped.vertexName(mapped.target(e)));
+        if (mapped.weight(e) != g.weight(vertex, neighbor) ||
+            !g.isEdge(vertex, neighbor)) {
+          fail("The file has an edge (" + name + ", " + neighbor +
+               ") that is not in the graph.");
+        }
+      }
+      if (mapped.degree(v) != g.degree(vertex)) {
+        fail("Vertex " + name + " has degree " + mapped.degree(v) +
+             " in the file.");
+      }
+      if (mapped.id(name) != v) {
+        fail("id(\"" + name + "\") returned " + mapped.id(name) +
+             "; expected " + v + ".");
+      }
+    }
+    if (mapped.id("no such vertex") != -1) {
+      fail("id() found a vertex that is not in the graph.");
+    }
+    for (Object u : vertices) {
+      int uid = mapped.id(String.valueOf(u));
+      for (Object v : vertices) {
+        int vid = mapped.id(String.valueOf(v));
+        if (mapped.isEdge(uid, vid) != g.isEdge(u, v) ||
+            mapped.weight(uid, vid) != g.weight(u, v)) {
+          fail("The file gives (" + u + ", " + v + ") weight " +
+               mapped.weight(uid, vid) + "; expected " + g.weight(u, v) +
+               ".");
+        }
+      }
+    }
+
+    WUGraph copy = mapped.toWUGraph();
+    if (copy.vertexCount() != g.vertexCount() ||
+        copy.edgeCount() != g.edgeCount()) {
+      fail("toWUGraph() returned " + copy.vertexCount() + " vertices and " +
+           copy.edgeCount() + " edges.");
+    }
+    for (int i = 0; i < vertices.length; i++) {
+      String name = String.valueOf(vertices[i]);
+      Neighbors neigh = g.getNeighbors(vertices[i]);
+      if (!copy.isVertex(name)) {
+        fail("toWUGraph() lost vertex " + name + ".");
+        continue;
+      }
+      if (copy.degree(name) != g.degree(vertices[i])) {
+        fail("toWUGraph() gave vertex " + name + " degree " +
+             copy.degree(name) + ".");
+      }
+      if (neigh == null) {
+        continue;
+      }
+      for (int j = 0; j < neigh.neighborList.length; j++) {
+        String neighbor = String.valueOf(neigh.neighborList[j]);
+        if (copy.weight(name, neighbor) != neigh.weightList[j] ||
+            !copy.isEdge(name, neighbor)) {
+          fail("toWUGraph() lost edge (" + name + ", " + neighbor + ").");
+        }
+      }
+    }
+  }
+
+  /**
+   * expectRejected() checks that opening "file" throws an IOException.
+   */
+  private static void expectRejected(String what, File file) {
+    System.out.println("Opening " + what + ".");
+    try {
+      GraphFile.open(file.getPath());
+      fail("GraphFile.open() accepted " + what + ".");
+    } catch (IOException e) {
+      System.out.println("  Rejected:  " + e.getMessage());
+    }
+  }
+
+  /**
+   * overwriteInt() replaces the int at byte "position" of "file".
+   */
+  private static void overwriteInt(File file, long position, int value)
+      throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.seek(position);
+      raf.writeInt(value);
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * tempFile() returns a new temporary file, deleted when the test exits.
+   * Each check uses its own file, since a file must not be changed while a
+   * MappedGraph has it open.
+   */
+  private static File tempFile() throws IOException {
+    File file = File.createTempFile("graph", ".wug");
+    file.deleteOnExit();
+    return file;
+  }
+
+  /**
+   * truncate() shortens "file" by "bytes" bytes.
+   */
+  private static void truncate(File file, long bytes) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(raf.length() - bytes);
+    } finally {
+      raf.close();
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    Random random = new Random(5);
+
+    WUGraph g = new WUGraph();
+    for (int i = 0; i < 200; i++) {
+      g.addVertex(i);
+    }
+    for (int i = 0; i < 600; i++) {
+      int u = random.nextInt(200);
+      int v = random.nextInt(10) == 0 ? u : random.nextInt(200);
+      g.addEdge(u, v, random.nextInt(2000) - 1000);
+    }
+    roundTrip(g, tempFile());
+    roundTrip(new WUGraph(), tempFile());
+
+    // names that sort differently as bytes and as chars, and a prefix
+    String[] names = { "", "a", "ab", "b", "\u00e9", "\uffe0", "z",
+                       "\ud83d\ude00", "zz" };
+    WUGraph named = new WUGraph();
+    for (String name : names) {
+      named.addVertex(name);
+    }
+    for (int i = 0; i < names.length; i++) {
+      named.addEdge(names[i], names[(i * 5) % names.length], i - 4);
+      named.addEdge(names[i], names[(i + 1) % names.length], 10 * i);
+    }
+    roundTrip(named, tempFile());
+
+    File file = tempFile();
+    GraphFile.write(g, file.getPath());
+    overwriteInt(file, 0, 0x12345678);
+    expectRejected("a file with the wrong magic number", file);
+
+    file = tempFile();
+    GraphFile.write(g, file.getPath());
+    overwriteInt(file, 4, 99);
+    expectRejected("a file with an unknown version", file);
+
+    file = tempFile();
+    GraphFile.write(g, file.getPath());
+    truncate(file, 4);
+    expectRejected("a truncated file", file);
+
+    file = tempFile();
+    GraphFile.write(g, file.getPath());
+    truncate(file, file.length() - 3);
+    expectRejected("a file shorter than the header", file);
+
+    if (errors == 0) {
+      System.out.println("All graph file tests passed.");
+    } else {
+      System.out.println(errors + " graph file tests failed.");
+    }
+  }
+}
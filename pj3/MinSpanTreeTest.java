@@ -0,0 +1,156 @@
+/* MinSpanTreeTest.java */
+
+/**
+ * The MinSpanTreeTest class tests the parallel minimum spanning tree
+ * algorithms against Kruskal's algorithm on random graphs with negative
+ * weights, tied weights, self-edges, and several connected components,
+ * including one graph large enough for ParallelKruskal to filter edges
+ * rather than sort them all.
+ */
+
+import graph.*;
+import graphalg.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import set.*;
+
+public class MinSpanTreeTest {
+
+  private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+  private static int errors = 0;
+
+  /**
+   * randomGraph() returns a graph whose vertices are the Integers 0 through
+   * "vertices" - 1, split into "components" ranges of consecutive vertices
+   * with no edges between ranges.  About "edges" random edges are added,
+   * with weights from -"maxWeight" to "maxWeight" - 1; a small weight range
+   * makes many ties.  About one edge in fifty is a self-edge.
+   */
+  private static WUGraph randomGraph(Random random, int vertices, int edges,
+                                     int components, int maxWeight) {
+    WUGraph g = new WUGraph();
+    for (int i = 0; i < vertices; i++) {
+      g.addVertex(i);
+    }
+    int size = vertices / components;
+    for (int k = 0; k < edges; k++) {
+      int component = random.nextInt(components);
+      int first = component * size;
+      int range = component == components - 1 ? vertices - first : size;
+      int u = first + random.nextInt(range);
+      int v = random.nextInt(50) == 0 ? u : first + random.nextInt(range);
+      g.addEdge(u, v, random.nextInt(2 * maxWeight) - maxWeight);
+    }
+    return g;
+  }
+
+  /**
+   * totalWeight() returns the total weight of the edges of a graph with no
+   * self-edges.
+   */
+  private static long totalWeight(WUGraph g) {
+    long total = 0;
+    Object[] vertices = g.getVertices();
+    for (int i = 0; i < vertices.length; i++) {
+      Neighbors neigh = g.getNeighbors(vertices[i]);
+      if (neigh == null) {
+        continue;
+      }
+      for (int j = 0; j < neigh.neighborList.length; j++) {
+        total += neigh.weightList[j];
+      }
+    }
+    return total / 2;
+  }
+
+  /**
+   * check() compares the forest "t", found by the algorithm "name" for the
+   * graph g, with the forest "kruskal" found by Kruskal's algorithm.  t must
+   * have every vertex of g, only edges of g with their weights in g, no
+   * cycle, and the same number of edges and total weight as "kruskal".
+   */
+  private static void check(String name, WUGraph g, WUGraph t,
+                            WUGraph kruskal) {
+    if (t.vertexCount() != g.vertexCount()) {
+      System.out.println("  " + name + " has " + t.vertexCount() +
+                         " vertices; the graph has " + g.vertexCount() + ".");
+      errors++;
+      return;
+    }
+    DisjointSets sets = new DisjointSets(g.vertexCount());
+    Object[] vertices = t.getVertices();
+    for (int i = 0; i < vertices.length; i++) {
+      Neighbors neigh = t.getNeighbors(vertices[i]);
+      if (neigh == null) {
+        continue;
+      }
+      for (int j = 0; j < neigh.neighborList.length; j++) {
+        int u = (Integer) vertices[i];
+        int v = (Integer) neigh.neighborList[j];
+        if (!g.isEdge(u, v) || g.weight(u, v) != neigh.weightList[j]) {
+          System.out.println("  " + name + " has an edge (" + u + ", " + v +
+                             ") that is not in the graph.");
+          errors++;
+          return;
+        }
+        if (u < v) {
+          int root1 = sets.find(u);
+          int root2 = sets.find(v);
+          if (root1 == root2) {
+            System.out.println("  " + name + " has a cycle.");
+            errors++;
+            return;
+          }
+          sets.union(root1, root2);
+        }
+      }
+    }
+    if (t.edgeCount() != kruskal.edgeCount() ||
+        totalWeight(t) != totalWeight(kruskal)) {
+      System.out.println("  " + name + " has " + t.edgeCount() +
+                         " edges weighing " + totalWeight(t) +
+                         "; Kruskal's has " + kruskal.edgeCount() +
+                         " weighing " + totalWeight(kruskal) + ".");
+      errors++;
+      return;
+    }
+    System.out.println("  " + name + " matches Kruskal's algorithm:  " +
+                       t.edgeCount() + " edges weighing " + totalWeight(t) +
+                       ".");
+  }
+
+  /**
+   * test() finds a minimum spanning forest of g with each algorithm and
+   * checks it.
+   */
+  private static void test(WUGraph g) {
+    System.out.println("Testing a graph with " + g.vertexCount() +
+                       " vertices and " + g.edgeCount() + " edges.");
+    WUGraph kruskal = Kruskal.minSpanTree(g);
+    check("ParallelKruskal", g, ParallelKruskal.minSpanTree(g), kruskal);
+    check("Boruvka", g, Boruvka.minSpanTree(g), kruskal);
+    check("Boruvka on four threads", g, Boruvka.minSpanTree(g, POOL),
+          kruskal);
+  }
+
+  public static void main(String[] args) {
+    Random random = new Random(7);
+
+    test(new WUGraph());
+    test(randomGraph(random, 10, 0, 1, 100));
+    test(randomGraph(random, 1, 5, 1, 100));
+    test(randomGraph(random, 100, 400, 1, 100));
+    test(randomGraph(random, 100, 400, 4, 100));
+    test(randomGraph(random, 1000, 3000, 3, 2));
+    // more than 2^16 edges, so ParallelKruskal partitions and filters
+    test(randomGraph(random, 20000, 200000, 1, 1000));
+    test(randomGraph(random, 30000, 150000, 5, 50));
+
+    if (errors == 0) {
+      System.out.println("Every forest matched Kruskal's algorithm.");
+    } else {
+      System.out.println(errors + " forests were wrong.");
+    }
+  }
+}
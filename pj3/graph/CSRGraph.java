@@ -0,0 +1,199 @@
+/* CSRGraph.java */
+
+package graph;
+
+import java.util.HashMap;
+
+/**
+ * The CSRGraph class is a frozen, read-only snapshot of a WUGraph in
+ * compressed sparse row form.  The vertices are numbered from zero to
+ * vertexCount() - 1, in the order the WUGraph's getVertices() returned them,
+ * and all the adjacency lists are packed end to end into two parallel arrays:
+ * one of neighbor numbers and one of edge weights.  The edges incident on
+ * vertex v are numbered from edgeStart(v) to edgeEnd(v) - 1, so walking them
+ * allocates nothing:
+ *
+ *   for (int e = csr.edgeStart(v); e < csr.edgeEnd(v); e++) {
+ *     int u = csr.target(e);
+ *     int w = csr.weight(e);
+ *     ...
+ *   }
+ *
+ * As in WUGraph.getNeighbors(), a self-edge appears once in its vertex's
+ * list, and every other edge appears twice, once in each endpoint's list.
+ *
+ * A CSRGraph is never changed after it is built, so it may be shared freely
+ * among threads.  Later changes to the WUGraph it was built from are not
+ * reflected in it.
+ */
+
+public class CSRGraph {
+
+  /**
+   * vertices holds the application's vertex objects, by number.  ids maps
+   * each vertex object back to its number.
+   */
+  private final Object[] vertices;
+  private final HashMap<Object, Integer> ids;
+
+  /**
+   * The edges incident on vertex v occupy indices offsets[v] through
+   * offsets[v + 1] - 1 of targets (the neighbors' numbers) and weights.
+   */
+  private final int[] offsets;
+  private final int[] targets;
+  private final int[] weights;
+
+  /**
+   * Every edge, keyed by its endpoints' numbers, for isEdge() and weight().
+   */
+  private final EdgeTable edges;
+
+  /**
+   * The number of (undirected) edges in the graph.
+   */
+  private final int edgeCount;
+
+  /**
+   * CSRGraph() constructs a snapshot of the WUGraph g.  g is not changed.
+   *
+   * Running time:  O(|V| + |E|).
+   *
+   * @param g the graph to copy.
+   */
+  public CSRGraph(WUGraph g) {
+    vertices = g.getVertices();
+    ids = new HashMap<Object, Integer>(2 * vertices.length);
+    offsets = new int[vertices.length + 1];
+    for (int v = 0; v < vertices.length; v++) {
+      ids.put(vertices[v], v);
+      offsets[v + 1] = offsets[v] + g.degree(vertices[v]);
+    }
+    targets = new int[offsets[vertices.length]];
+    weights = new int[targets.length];
+    edges = new EdgeTable(g.edgeCount());
+    for (int v = 0; v < vertices.length; v++) {
+      Neighbors neighbors = g.getNeighbors(vertices[v]);
+      if (neighbors == null) {
+        continue;
+      }
+      for (int i = 0; i < neighbors.neighborList.length; i++) {
+        int e = offsets[v] + i;
+        targets[e] = ids.get(neighbors.neighborList[i]);
+        weights[e] = neighbors.weightList[i];
+        if (targets[e] >= v) {
+          edges.put(v, targets[e], weights[e]);        // once per edge
+        }
+      }
+    }
+    edgeCount = g.edgeCount();
+  }
+
+  /**
+   * degree() returns the degree of vertex number v.  Self-edges add only one
+   * to the degree of a vertex.
+   *
+   * Running time:  O(1).
+   */
+  public int degree(int v) {
+    return offsets[v + 1] - offsets[v];
+  }
+
+  /**
+   * edgeCount() returns the total number of edges in the graph.
+   *
+   * Running time:  O(1).
+   */
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * edgeEnd() returns one past the number of the last edge incident on vertex
+   * number v.  It equals edgeStart(v + 1).
+   *
+   * Running time:  O(1).
+   */
+  public int edgeEnd(int v) {
+    return offsets[v + 1];
+  }
+
+  /**
+   * edgeStart() returns the number of the first edge incident on vertex
+   * number v.  If v has degree zero, edgeStart(v) == edgeEnd(v).
+   *
+   * Running time:  O(1).
+   */
+  public int edgeStart(int v) {
+    return offsets[v];
+  }
+
+  /**
+   * id() returns the number of the vertex "vertex", or -1 if "vertex" was
+   * not a vertex of the graph when the snapshot was built.
+   *
+   * Running time:  O(1).
+   */
+  public int id(Object vertex) {
+    Integer id = ids.get(vertex);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * isEdge() returns true if (u, v) is an edge of the graph, where u and v
+   * are vertex numbers.
+   *
+   * Running time:  O(1).
+   */
+  public boolean isEdge(int u, int v) {
+    return edges.isEdge(u, v);
+  }
+
+  /**
+   * target() returns the number of the vertex at the far end of edge number
+   * e, as seen from the vertex whose list e belongs to.
+   *
+   * Running time:  O(1).
+   */
+  public int target(int e) {
+    return targets[e];
+  }
+
+  /**
+   * vertex() returns the application's object for vertex number v.
+   *
+   * Running time:  O(1).
+   */
+  public Object vertex(int v) {
+    return vertices[v];
+  }
+
+  /**
+   * vertexCount() returns the number of vertices in the graph.
+   *
+   * Running time:  O(1).
+   */
+  public int vertexCount() {
+    return vertices.length;
+  }
+
+  /**
+   * weight() returns the weight of edge number e.
+   *
+   * Running time:  O(1).
+   */
+  public int weight(int e) {
+    return weights[e];
+  }
+
+  /**
+   * weight() returns the weight of (u, v), where u and v are vertex numbers.
+   * Returns zero if (u, v) is not an edge.
+   *
+   * Running time:  O(1).
+   */
+  public int weight(int u, int v) {
+    return edges.weight(u, v);
+  }
+
+}
@@ -0,0 +1,307 @@
+/* ConcurrentWUGraph.java */
+
+package graph;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The ConcurrentWUGraph class is a WUGraph that many threads may use at once:
+ * typically many threads reading the graph while one or a few change it.
+ *
+ * WUGraph promises nothing about concurrent use, so this class asks only one
+ * thing of it:  that its methods may run in parallel as long as none of them
+ * changes the graph.  A change may rearrange state that every vertex shares,
+ * so it must exclude all readers, not just those of the vertices it touches;
+ * locking per vertex, or reading optimistically and retrying, would be safe
+ * only for a WUGraph known to keep each vertex's edges apart.
+ *
+ * Every method that only reads the graph holds a read lock, and every method
+ * that changes the graph holds the write lock.  So that readers do not all
+ * contend for one lock word, the locks are striped:  a reader takes the read
+ * lock of one stripe, chosen by its thread, and a writer takes the write
+ * locks of every stripe, in order.  A change, together with its effect on
+ * degree() and edgeCount(), is therefore seen by readers all at once or not
+ * at all.  getNeighbors() copies a vertex's edges under a read lock, so it
+ * returns them as they were at a single moment.
+ *
+ * A sequence of calls is not atomic:  another thread may change the graph
+ * between a call to isEdge() and a call to weight(), for example.  Code that
+ * needs a consistent view of the whole graph, such as a minimum spanning
+ * tree computation, should work on snapshot(), which is taken under a
+ * single read lock.
+ */
+
+public class ConcurrentWUGraph extends WUGraph {
+
+  /**
+   * STRIPES is the number of lock stripes:  the least power of two no smaller
+   * than the number of processors, so that concurrent readers seldom share
+   * a stripe.
+   */
+  private static final int STRIPES =
+    Integer.highestOneBit(2 * Runtime.getRuntime().availableProcessors() - 1);
+
+  /**
+   * stripes holds the locks.  A reader holds the read lock of its own thread's
+   * stripe; a writer holds the write lock of every stripe.
+   */
+  private final ReentrantReadWriteLock[] stripes =
+    new ReentrantReadWriteLock[STRIPES];
+
+  /**
+   * ConcurrentWUGraph() constructs a graph having no vertices or edges.
+   *
+   * Running time:  O(1).
+   */
+  public ConcurrentWUGraph() {
+    super();
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new ReentrantReadWriteLock();
+    }
+  }
+
+  /**
+   * addEdge() adds an edge (u, v) to the graph, as WUGraph.addEdge() does.
+   *
+   * Running time:  O(1), once the write locks are held.
+   */
+  @Override
+  public void addEdge(Object u, Object v, int weight) {
+    lockAll();
+    try {
+      super.addEdge(u, v, weight);
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * addVertex() adds a vertex to the graph, as WUGraph.addVertex() does.
+   *
+   * Running time:  O(1), once the write locks are held.
+   */
+  @Override
+  public void addVertex(Object vertex) {
+    lockAll();
+    try {
+      super.addVertex(vertex);
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * degree() returns the degree of a vertex, as WUGraph.degree() does.
+   *
+   * Running time:  O(1).
+   */
+  @Override
+  public int degree(Object vertex) {
+    Lock read = readLock();
+    read.lock();
+    try {
+      return super.degree(vertex);
+    } finally {
+      read.unlock();
+    }
+  }
+
+  /**
+   * edgeCount() returns the total number of edges in the graph.
+   *
+   * Running time:  O(1).
+   */
+  @Override
+  public int edgeCount() {
+    Lock read = readLock();
+    read.lock();
+    try {
+      return super.edgeCount();
+    } finally {
+      read.unlock();
+    }
+  }
+
+  /**
+   * getNeighbors() returns a new Neighbors object, as WUGraph.getNeighbors()
+   * does.
+   *
+   * Running time:  O(d), where d is the degree of "vertex".
+   */
+  @Override
+  public Neighbors getNeighbors(Object vertex) {
+    Lock read = readLock();
+    read.lock();
+    try {
+      return super.getNeighbors(vertex);
+    } finally {
+      read.unlock();
+    }
+  }
+
+  /**
+   * getVertices() returns a new array of all the vertices, as
+   * WUGraph.getVertices() does.
+   *
+   * Running time:  O(|V|).
+   */
+  @Override
+  public Object[] getVertices() {
+    Lock read = readLock();
+    read.lock();
+    try {
+      return super.getVertices();
+    } finally {
+      read.unlock();
+    }
+  }
+
+  /**
+   * isEdge() returns true if (u, v) is an edge of the graph.
+   *
+   * Running time:  O(1).
+   */
+  @Override
+  public boolean isEdge(Object u, Object v) {
+    Lock read = readLock();
+    read.lock();
+    try {
+      return super.isEdge(u, v);
+    } finally {
+      read.unlock();
+    }
+  }
+
+  /**
+   * isVertex() returns true if "vertex" represents a vertex of the graph.
+   *
+   * Running time:  O(1).
+   */
+  @Override
+  public boolean isVertex(Object vertex) {
+    Lock read = readLock();
+    read.lock();
+    try {
+      return super.isVertex(vertex);
+    } finally {
+      read.unlock();
+    }
+  }
+
+  /**
+   * lockAll() acquires the write lock of every stripe, in order, which
+   * excludes every reader and every other writer.
+   *
+   * Running time:  O(STRIPES), once the locks are free.
+   */
+  private void lockAll() {
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i].writeLock().lock();
+    }
+  }
+
+  /**
+   * readLock() returns the read lock of the calling thread's stripe.  Each
+   * thread always gets the same stripe, so its read locks nest.
+   *
+   * Running time:  O(1).
+   */
+  private Lock readLock() {
+    long id = Thread.currentThread().getId();
+    return stripes[(int) id & (STRIPES - 1)].readLock();
+  }
+
+  /**
+   * removeEdge() removes the edge (u, v) from the graph, as
+   * WUGraph.removeEdge() does.
+   *
+   * Running time:  O(1), once the write locks are held.
+   */
+  @Override
+  public void removeEdge(Object u, Object v) {
+    lockAll();
+    try {
+      super.removeEdge(u, v);
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * removeVertex() removes a vertex and its edges from the graph, as
+   * WUGraph.removeVertex() does.
+   *
+   * Running time:  O(d), where d is the degree of "vertex", once the write
+   * locks are held.
+   */
+  @Override
+  public void removeVertex(Object vertex) {
+    lockAll();
+    try {
+      super.removeVertex(vertex);
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * snapshot() returns a CSRGraph copy of the whole graph, taken under one
+   * read lock, so it reflects a single version of the graph.
+   *
+   * Running time:  O(|V| + |E|).
+   */
+  public CSRGraph snapshot() {
+    Lock read = readLock();
+    read.lock();
+    try {
+      return new CSRGraph(this);
+    } finally {
+      read.unlock();
+    }
+  }
+
+  /**
+   * unlockAll() releases the write lock of every stripe, in reverse order.
+   *
+   * Running time:  O(STRIPES).
+   */
+  private void unlockAll() {
+    for (int i = STRIPES - 1; i >= 0; i--) {
+      stripes[i].writeLock().unlock();
+    }
+  }
+
+  /**
+   * vertexCount() returns the number of vertices in the graph.
+   *
+   * Running time:  O(1).
+   */
+  @Override
+  public int vertexCount() {
+    Lock read = readLock();
+    read.lock();
+    try {
+      return super.vertexCount();
+    } finally {
+      read.unlock();
+    }
+  }
+
+  /**
+   * weight() returns the weight of (u, v), or zero if (u, v) is not an edge.
+   *
+   * Running time:  O(1).
+   */
+  @Override
+  public int weight(Object u, Object v) {
+    Lock read = readLock();
+    read.lock();
+    try {
+      return super.weight(u, v);
+    } finally {
+      read.unlock();
+    }
+  }
+
+}
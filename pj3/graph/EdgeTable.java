@@ -0,0 +1,225 @@
+/* EdgeTable.java */
+
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * The EdgeTable class is a hash table of weighted, undirected edges between
+ * vertices numbered by nonnegative ints, such as the vertex numbers of a
+ * CSRGraph.  It plays the part of a hash table keyed by VertexPair, without
+ * the objects:  edge (u, v) is keyed by the single long
+ *
+ *   (min(u, v) << 32) | max(u, v),
+ *
+ * so (u, v) and (v, u) are the same key, and comparing two keys is one
+ * comparison rather than up to four calls to equals().  Keys and weights are
+ * stored in two parallel arrays and collisions are resolved by linear
+ * probing, so a lookup touches one or two cache lines and allocates nothing.
+ *
+ * The table doubles its capacity whenever it becomes three-quarters full.
+ */
+
+public class EdgeTable {
+
+  /**
+   * The key stored in an empty slot.  No edge has it, since vertex numbers
+   * are nonnegative.
+   */
+  private static final long EMPTY = -1L;
+
+  /**
+   * The greatest number of slots.  Java arrays can hold little more.
+   */
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * keys[i] is the key of the edge in slot i, or EMPTY.  weights[i] is its
+   * weight.  The length of both is a power of two.
+   */
+  private long[] keys;
+  private int[] weights;
+
+  /**
+   * 64 minus the base-2 logarithm of the capacity:  home() keeps the top
+   * 64 - shift bits of a hashed key.
+   */
+  private int shift;
+
+  /**
+   * The number of edges in the table.
+   */
+  private int size;
+
+  /**
+   * key() returns the key of edge (u, v), which is also the key of (v, u).
+   *
+   * @param u one endpoint, a nonnegative vertex number.
+   * @param v the other endpoint, a nonnegative vertex number.
+   * @return the edge's key.
+   */
+  public static long key(int u, int v) {
+    if (u > v) {
+      return ((long) v << 32) | u;
+    } else {
+      return ((long) u << 32) | v;
+    }
+  }
+
+  /**
+   * EdgeTable() constructs an empty table.
+   */
+  public EdgeTable() {
+    this(16);
+  }
+
+  /**
+   * EdgeTable() constructs an empty table with room for "expected" edges
+   * before it must resize.
+   *
+   * @param expected the number of edges the table should hold without
+   *        resizing.
+   */
+  public EdgeTable(int expected) {
+    int capacity = 16;
+    while (capacity < MAX_CAPACITY && capacity / 4 * 3 < expected) {
+      capacity *= 2;
+    }
+    allocate(capacity);
+  }
+
+  /**
+   * allocate() replaces the arrays with empty ones of a given capacity.
+   */
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    weights = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+    shift = Long.numberOfLeadingZeros(capacity - 1);
+  }
+
+  /**
+   * isEdge() returns true if (u, v) is in the table.
+   *
+   * Running time:  O(1) expected.
+   */
+  public boolean isEdge(int u, int v) {
+    return keys[slot(key(u, v))] != EMPTY;
+  }
+
+  /**
+   * put() adds edge (u, v) with weight "weight" to the table.  If the table
+   * already contains (u, v), its weight is updated instead.
+   *
+   * Running time:  O(1) amortized.
+   *
+   * @return true if (u, v) was not already in the table.
+   */
+  public boolean put(int u, int v, int weight) {
+    long key = key(u, v);
+    int slot = slot(key);
+    if (keys[slot] != EMPTY) {
+      weights[slot] = weight;
+      return false;
+    }
+    if (size + 1 > keys.length / 4 * 3) {
+      resize();
+      slot = slot(key);
+    }
+    keys[slot] = key;
+    weights[slot] = weight;
+    size++;
+    return true;
+  }
+
+  /**
+   * remove() removes edge (u, v) from the table.  If (u, v) is not in the
+   * table, the table is unchanged.
+   *
+   * Running time:  O(1) expected.
+   *
+   * @return true if (u, v) was in the table.
+   */
+  public boolean remove(int u, int v) {
+    int mask = keys.length - 1;
+    int hole = slot(key(u, v));
+    if (keys[hole] == EMPTY) {
+      return false;
+    }
+    // Shift later entries of the probe run back into the hole, so that no
+    // search stops early at it.
+    for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+      int home = home(keys[i]);
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        keys[hole] = keys[i];
+        weights[hole] = weights[i];
+        hole = i;
+      }
+    }
+    keys[hole] = EMPTY;
+    size--;
+    return true;
+  }
+
+  /**
+   * resize() doubles the capacity of the table.
+   */
+  private void resize() {
+    if (keys.length == MAX_CAPACITY) {
+      throw new IllegalStateException("EdgeTable is full");
+    }
+    long[] oldKeys = keys;
+    int[] oldWeights = weights;
+    allocate(2 * oldKeys.length);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        weights[slot] = oldWeights[i];
+      }
+    }
+  }
+
+  /**
+   * home() returns the slot where a search for a key begins.
+   */
+  private int home(long key) {
+    // Fibonacci hashing:  the top bits of the product depend on every bit
+    // of the key, so consecutive vertex numbers spread across the table.
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+
+  /**
+   * size() returns the number of edges in the table.
+   *
+   * Running time:  O(1).
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * slot() returns the slot holding a key, or the empty slot where it would
+   * be inserted if it is not in the table.
+   */
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    int i = home(key);
+    while (keys[i] != EMPTY && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  /**
+   * weight() returns the weight of (u, v).  Returns zero if (u, v) is not in
+   * the table, like WUGraph.weight().
+   *
+   * Running time:  O(1) expected.
+   */
+  public int weight(int u, int v) {
+    int slot = slot(key(u, v));
+    return keys[slot] == EMPTY ? 0 : weights[slot];
+  }
+
+}
@@ -0,0 +1,185 @@
+/* GraphFile.java */
+
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The GraphFile class saves WUGraphs in a compact binary format, and opens
+ * saved graphs as MappedGraphs, which read the file in place through memory
+ * mapping instead of parsing it.  Opening a graph takes time independent of
+ * its size; the operating system pages in only the parts that are used.
+ *
+ * A graph file holds the compressed sparse row form of a graph (see
+ * CSRGraph), with every number big-endian, in these sections:
+ *
+ *   header         MAGIC, VERSION, |V| and |E| as ints; the number of
+ *                  adjacency entries and the length of the name section in
+ *                  bytes as longs (32 bytes in all)
+ *   name offsets   |V| + 1 longs:  vertex v's name occupies bytes
+ *                  nameOffsets[v] to nameOffsets[v + 1] - 1 of the names
+ *   names          each vertex's name, String.valueOf(vertex), in UTF-8,
+ *                  followed by zero bytes up to a multiple of eight bytes
+ *   name index     |V| ints:  the vertex numbers in increasing order of
+ *                  their names, compared byte by byte as unsigned values,
+ *                  followed by zero bytes up to a multiple of eight bytes
+ *   edge offsets   |V| + 1 longs:  vertex v's edges are adjacency entries
+ *                  offsets[v] to offsets[v + 1] - 1
+ *   targets        one int per adjacency entry:  the neighbor's number.
+ *                  Each vertex's entries are in increasing order of
+ *                  neighbor.
+ *   weights        one int per adjacency entry:  the edge's weight
+ *
+ * The name index and the order of the targets let a MappedGraph find a
+ * vertex by name, or an edge by its endpoints, by binary search.
+ *
+ * A file records vertices only by name, so a graph read back has Strings for
+ * vertices, whatever objects the saved graph used.
+ */
+
+public class GraphFile {
+
+  /**
+   * The first four bytes of every graph file:  "WUG1" in ASCII.
+   */
+  static final int MAGIC = 0x57554731;
+
+  /**
+   * The version of the format described above.
+   */
+  static final int VERSION = 2;
+
+  /**
+   * The length of the header, in bytes.
+   */
+  static final int HEADER_BYTES = 32;
+
+  /**
+   * align() returns the smallest multiple of eight no less than n.
+   */
+  static long align(long n) {
+    return (n + 7) & ~7L;
+  }
+
+  /**
+   * compareNames() compares two names, encoded in UTF-8, byte by byte as
+   * unsigned values; a name that is a prefix of another comes first.
+   *
+   * @return a negative number, zero, or a positive number as "a" comes
+   *         before, equals, or comes after "b".
+   */
+  static int compareNames(byte[] a, byte[] b) {
+    for (int i = 0; i < a.length && i < b.length; i++) {
+      int diff = (a[i] & 0xff) - (b[i] & 0xff);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return a.length - b.length;
+  }
+
+  /**
+   * open() opens a graph file for reading.
+   *
+   * Running time:  O(1).
+   *
+   * @param filename the name of the file.
+   * @return a read-only view of the saved graph.
+   * @throws IOException if the file cannot be read or is not a graph file.
+   */
+  public static MappedGraph open(String filename) throws IOException {
+    return new MappedGraph(filename);
+  }
+
+  /**
+   * write() saves the WUGraph g in the file "filename", replacing whatever
+   * the file held.  g is not changed.
+   *
+   * Running time:  O(|V| log |V| + |E| log |E|), to sort the name index and
+   * the neighbor lists.
+   *
+   * @param g the graph to save.
+   * @param filename the name of the file.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void write(WUGraph g, String filename) throws IOException {
+    CSRGraph csr = new CSRGraph(g);
+    int n = csr.vertexCount();
+    byte[][] names = new byte[n][];
+    long namesLength = 0;
+    for (int v = 0; v < n; v++) {
+      names[v] = String.valueOf(csr.vertex(v)).getBytes(StandardCharsets.UTF_8);
+      namesLength += names[v].length;
+    }
+    long entries = n == 0 ? 0 : csr.edgeEnd(n - 1);
+    Integer[] byName = new Integer[n];
+    for (int v = 0; v < n; v++) {
+      byName[v] = v;
+    }
+    Arrays.sort(byName, new Comparator<Integer>() {
+      public int compare(Integer u, Integer v) {
+        return compareNames(names[u], names[v]);
+      }
+    });
+
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(filename), 1 << 16));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(n);
+      out.writeInt(csr.edgeCount());
+      out.writeLong(entries);
+      out.writeLong(namesLength);
+
+      long offset = 0;
+      out.writeLong(offset);
+      for (int v = 0; v < n; v++) {
+        offset += names[v].length;
+        out.writeLong(offset);
+      }
+      for (int v = 0; v < n; v++) {
+        out.write(names[v]);
+      }
+      for (long pad = namesLength; pad < align(namesLength); pad++) {
+        out.writeByte(0);
+      }
+      for (int v = 0; v < n; v++) {
+        out.writeInt(byName[v]);
+      }
+      if (n % 2 != 0) {
+        out.writeInt(0);
+      }
+
+      for (int v = 0; v < n; v++) {
+        out.writeLong(csr.edgeStart(v));
+      }
+      out.writeLong(entries);
+      // sort each vertex's entries by neighbor, keeping each weight with
+      // its neighbor
+      long[] sorted = new long[(int) entries];
+      for (int e = 0; e < entries; e++) {
+        sorted[e] = ((long) csr.target(e) << 32) |
+                    (csr.weight(e) & 0xFFFFFFFFL);
+      }
+      for (int v = 0; v < n; v++) {
+        Arrays.sort(sorted, csr.edgeStart(v), csr.edgeEnd(v));
+      }
+      for (int e = 0; e < entries; e++) {
+        out.writeInt((int) (sorted[e] >>> 32));
+      }
+      for (int e = 0; e < entries; e++) {
+        out.writeInt((int) sorted[e]);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+}
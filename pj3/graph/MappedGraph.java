@@ -0,0 +1,330 @@
+/* MappedGraph.java */
+
+package graph;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The MappedGraph class is a read-only view of a graph file written by
+ * GraphFile.write().  The file is memory-mapped, and every query reads the
+ * mapped bytes directly, so nothing is parsed when the file is opened and
+ * only the pages a program touches are ever read from disk.
+ *
+ * Vertices and edges are numbered as in CSRGraph, except that edge numbers
+ * are longs, since a file may hold more adjacency entries than an int can
+ * count.  Walking the edges of vertex v allocates nothing:
+ *
+ *   for (long e = graph.edgeStart(v); e < graph.edgeEnd(v); e++) {
+ *     int u = graph.target(e);
+ *     int w = graph.weight(e);
+ *     ...
+ *   }
+ *
+ * id() finds a vertex by name by binary search of the file's name index, and
+ * isEdge() and weight(u, v) find an edge by binary search of the sorted
+ * neighbor list of u, so these queries, too, read the file in place instead
+ * of building a table of the whole graph.
+ *
+ * A single mapping can cover at most 2GB, so the file is mapped in segments
+ * of 2^30 bytes.  Every section of the file starts at a multiple of eight
+ * bytes, so no number straddles two segments.
+ *
+ * A MappedGraph is never changed, so it may be shared freely among threads.
+ * The file must not be changed while it is open.
+ */
+
+public class MappedGraph {
+
+  private static final int SEGMENT_BITS = 30;
+  private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+  /**
+   * The mapped file, in segments of 2^SEGMENT_BITS bytes.
+   */
+  private final MappedByteBuffer[] segments;
+
+  /**
+   * The counts from the header.
+   */
+  private final int vertexCount;
+  private final int edgeCount;
+  private final long entries;
+
+  /**
+   * The file positions of the sections.
+   */
+  private final long nameOffsetsAt;
+  private final long namesAt;
+  private final long nameIndexAt;
+  private final long offsetsAt;
+  private final long targetsAt;
+  private final long weightsAt;
+
+  /**
+   * MappedGraph() maps the graph file "filename".  Use GraphFile.open().
+   *
+   * @throws IOException if the file cannot be read or is not a graph file.
+   */
+  MappedGraph(String filename) throws IOException {
+    FileChannel channel = FileChannel.open(Paths.get(filename),
+                                           StandardOpenOption.READ);
+    try {
+      long length = channel.size();
+      int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+      segments = new MappedByteBuffer[count];
+      for (int s = 0; s < count; s++) {
+        long start = (long) s << SEGMENT_BITS;
+        segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                                  Math.min(1L << SEGMENT_BITS,
+                                           length - start));
+      }
+      // the mappings stay valid after the channel is closed
+
+      if (length < GraphFile.HEADER_BYTES ||
+          getInt(0) != GraphFile.MAGIC) {
+        throw new IOException(filename + " is not a graph file");
+      }
+      if (getInt(4) != GraphFile.VERSION) {
+        throw new IOException(filename + " has unknown version " +
+                              getInt(4));
+      }
+      vertexCount = getInt(8);
+      edgeCount = getInt(12);
+      entries = getLong(16);
+      long namesLength = getLong(24);
+      nameOffsetsAt = GraphFile.HEADER_BYTES;
+      namesAt = nameOffsetsAt + 8L * (vertexCount + 1);
+      nameIndexAt = namesAt + GraphFile.align(namesLength);
+      offsetsAt = nameIndexAt + GraphFile.align(4L * vertexCount);
+      targetsAt = offsetsAt + 8L * (vertexCount + 1);
+      weightsAt = targetsAt + 4L * entries;
+      if (weightsAt + 4L * entries != length) {
+        throw new IOException(filename + " is truncated or corrupt");
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * compareName() compares the name of vertex number v with "name", encoded
+   * in UTF-8, in the order of GraphFile.compareNames().
+   */
+  private int compareName(int v, byte[] name) {
+    long start = namesAt + getLong(nameOffsetsAt + 8L * v);
+    long end = namesAt + getLong(nameOffsetsAt + 8L * (v + 1));
+    for (int i = 0; i < end - start && i < name.length; i++) {
+      int diff = (getByte(start + i) & 0xff) - (name[i] & 0xff);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return Long.compare(end - start, name.length);
+  }
+
+  /**
+   * degree() returns the degree of vertex number v.  Self-edges add only one
+   * to the degree of a vertex.
+   *
+   * Running time:  O(1).
+   */
+  public int degree(int v) {
+    return (int) (edgeEnd(v) - edgeStart(v));
+  }
+
+  /**
+   * edgeCount() returns the total number of edges in the graph.
+   *
+   * Running time:  O(1).
+   */
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * edgeEnd() returns one past the number of the last edge incident on vertex
+   * number v.
+   *
+   * Running time:  O(1).
+   */
+  public long edgeEnd(int v) {
+    return getLong(offsetsAt + 8L * (v + 1));
+  }
+
+  /**
+   * edgeStart() returns the number of the first edge incident on vertex
+   * number v.
+   *
+   * Running time:  O(1).
+   */
+  public long edgeStart(int v) {
+    return getLong(offsetsAt + 8L * v);
+  }
+
+  /**
+   * findEdge() returns the number of the edge (u, v) in the list of vertex
+   * number u, or -1 if (u, v) is not an edge, by binary search.
+   */
+  private long findEdge(int u, int v) {
+    long lo = edgeStart(u);
+    long hi = edgeEnd(u) - 1;
+    while (lo <= hi) {
+      long mid = (lo + hi) >>> 1;
+      int t = target(mid);
+      if (t < v) {
+        lo = mid + 1;
+      } else if (t > v) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * getByte() returns the byte at a position of the file.
+   */
+  private byte getByte(long position) {
+    return segments[(int) (position >>> SEGMENT_BITS)]
+        .get((int) (position & SEGMENT_MASK));
+  }
+
+  /**
+   * getInt() returns the int at a position of the file, which must be a
+   * multiple of four.
+   */
+  private int getInt(long position) {
+    return segments[(int) (position >>> SEGMENT_BITS)]
+        .getInt((int) (position & SEGMENT_MASK));
+  }
+
+  /**
+   * getLong() returns the long at a position of the file, which must be a
+   * multiple of eight.
+   */
+  private long getLong(long position) {
+    return segments[(int) (position >>> SEGMENT_BITS)]
+        .getLong((int) (position & SEGMENT_MASK));
+  }
+
+  /**
+   * id() returns the number of the vertex whose name is "name", or -1 if no
+   * vertex has that name.  If several vertices were saved with the same
+   * name, it returns one of them.
+   *
+   * Running time:  O(k log |V|), where k is the length of the name.
+   */
+  public int id(String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    int lo = 0;
+    int hi = vertexCount - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int v = getInt(nameIndexAt + 4L * mid);
+      int diff = compareName(v, bytes);
+      if (diff < 0) {
+        lo = mid + 1;
+      } else if (diff > 0) {
+        hi = mid - 1;
+      } else {
+        return v;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * isEdge() returns true if (u, v) is an edge of the graph, where u and v
+   * are vertex numbers.
+   *
+   * Running time:  O(log d), where d is the degree of u.
+   */
+  public boolean isEdge(int u, int v) {
+    return findEdge(u, v) >= 0;
+  }
+
+  /**
+   * target() returns the number of the vertex at the far end of edge number
+   * e, as seen from the vertex whose list e belongs to.
+   *
+   * Running time:  O(1).
+   */
+  public int target(long e) {
+    return getInt(targetsAt + 4L * e);
+  }
+
+  /**
+   * toWUGraph() reads the whole graph into a new WUGraph, whose vertices are
+   * the vertices' names.
+   *
+   * Running time:  O(|V| + |E|).
+   */
+  public WUGraph toWUGraph() {
+    WUGraph g = new WUGraph();
+    String[] names = new String[vertexCount];
+    for (int v = 0; v < vertexCount; v++) {
+      names[v] = vertexName(v);
+      g.addVertex(names[v]);
+    }
+    for (int v = 0; v < vertexCount; v++) {
+      for (long e = edgeStart(v); e < edgeEnd(v); e++) {
+        if (target(e) >= v) {
+          g.addEdge(names[v], names[target(e)], weight(e));
+        }
+      }
+    }
+    return g;
+  }
+
+  /**
+   * vertexCount() returns the number of vertices in the graph.
+   *
+   * Running time:  O(1).
+   */
+  public int vertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * vertexName() returns the name of vertex number v:  String.valueOf() of
+   * the vertex object that was saved.
+   *
+   * Running time:  O(length of the name).
+   */
+  public String vertexName(int v) {
+    long start = namesAt + getLong(nameOffsetsAt + 8L * v);
+    long end = namesAt + getLong(nameOffsetsAt + 8L * (v + 1));
+    byte[] bytes = new byte[(int) (end - start)];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = getByte(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * weight() returns the weight of edge number e.
+   *
+   * Running time:  O(1).
+   */
+  public int weight(long e) {
+    return getInt(weightsAt + 4L * e);
+  }
+
+  /**
+   * weight() returns the weight of (u, v), where u and v are vertex numbers.
+   * Returns zero if (u, v) is not an edge.
+   *
+   * Running time:  O(log d), where d is the degree of u.
+   */
+  public int weight(int u, int v) {
+    long e = findEdge(u, v);
+    return e < 0 ? 0 : weight(e);
+  }
+
+}
@@ -0,0 +1,255 @@
+/* Boruvka.java */
+
+package graphalg;
+
+import graph.*;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import set.*;
+
+/**
+ * The Boruvka class contains the method minSpanTree(), which computes a
+ * minimum spanning tree (or forest) of a WUGraph with Boruvka's algorithm,
+ * spreading the work over a ForkJoinPool.
+ *
+ * Boruvka's algorithm works in rounds.  In each round, every component of the
+ * forest built so far finds its cheapest edge to another component, and all
+ * of those edges are added to the forest at once.  Every round at least
+ * halves the number of components, so there are at most log |V| rounds.
+ * Unlike Kruskal's algorithm, where each edge must wait for every lighter
+ * edge, the search for cheapest edges looks at each edge independently, so
+ * it divides among as many threads as there are cores.  Only the contraction
+ * at the end of a round, which unites components with set.DisjointSets, runs
+ * on one thread; it takes time proportional to the number of components, not
+ * edges.
+ *
+ * Each edge is packed into a long by PackedEdges, with its weight in the
+ * high 32 bits and its number in the low 32, so comparing two packed edges
+ * compares weights and breaks ties by edge number.  With every edge distinct
+ * in this order, the cheapest edges of a round can never close a cycle, and
+ * the tree found is the same on every run, whatever the number of threads.
+ */
+
+public class Boruvka {
+
+  /**
+   * The number of edges below which a task scans its edges itself instead
+   * of splitting them with another task.
+   */
+  private static final int TASK_SIZE = 1 << 13;
+
+  /**
+   * The value of a component's cheapest edge before any edge is offered.
+   */
+  private static final long NONE = Long.MAX_VALUE;
+
+  /**
+   * minSpanTree() returns a WUGraph that represents the minimum spanning tree
+   * of the WUGraph g, computed in the common ForkJoinPool.  The original
+   * WUGraph g is NOT changed.  If g is not connected, the result is a
+   * minimum spanning forest.
+   *
+   * @param g The weighted, undirected graph whose MST we want to compute.
+   * @return A newly constructed WUGraph representing the MST of g.
+   */
+  public static WUGraph minSpanTree(WUGraph g) {
+    return minSpanTree(g, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * minSpanTree() returns a WUGraph that represents the minimum spanning tree
+   * of the WUGraph g, computed in the ForkJoinPool "pool".  The original
+   * WUGraph g is NOT changed.
+   *
+   * @param g The weighted, undirected graph whose MST we want to compute.
+   * @param pool The pool whose threads search for cheapest edges.
+   * @return A newly constructed WUGraph representing the MST of g.
+   */
+  public static WUGraph minSpanTree(WUGraph g, ForkJoinPool pool) {
+    return new Boruvka(new CSRGraph(g)).run(pool);
+  }
+
+  /**
+   * The graph being spanned.
+   */
+  private final CSRGraph csr;
+
+  /**
+   * The endpoints of each edge, by edge number, as listed by PackedEdges.
+   */
+  private final int[] from;
+  private final int[] to;
+
+  /**
+   * The packed edges that may still join two components.  Each round drops
+   * the edges its contraction made internal.
+   */
+  private long[] edges;
+
+  /**
+   * The components formed by the tree edges chosen so far, and the cheapest
+   * packed edge leaving each, indexed by the component's root.
+   */
+  private final DisjointSets components;
+  private final AtomicLongArray cheapest;
+
+  /**
+   * roots[0 .. rootCount - 1] are the roots of the components, so that a
+   * contraction visits each component once without scanning every vertex.
+   */
+  private final int[] roots;
+  private int rootCount;
+
+  /**
+   * The tree being built.
+   */
+  private final WUGraph tree;
+
+  /**
+   * Boruvka() sets up a computation of the MST of a graph.
+   */
+  private Boruvka(CSRGraph csr) {
+    this.csr = csr;
+    PackedEdges packed = new PackedEdges(csr);
+    from = packed.from;
+    to = packed.to;
+    edges = packed.edges;
+    components = new DisjointSets(csr.vertexCount());
+    cheapest = new AtomicLongArray(csr.vertexCount());
+    roots = new int[csr.vertexCount()];
+    for (int v = 0; v < roots.length; v++) {
+      roots[v] = v;
+    }
+    rootCount = roots.length;
+    tree = PackedEdges.emptyForest(csr);
+  }
+
+  /**
+   * compact() removes from edges[0 .. length - 1] every edge whose endpoints
+   * are now in the same component, with a parallel stream.  The stream is
+   * started from a task in "pool", so that it runs on that pool's threads
+   * rather than those of the common pool.
+   *
+   * @return the number of edges kept.
+   */
+  private int compact(int length, ForkJoinPool pool) {
+    long[] kept = pool.submit(() ->
+        Arrays.stream(edges, 0, length).parallel()
+              .filter(edge -> {
+                int i = PackedEdges.number(edge);
+                return components.find(from[i]) != components.find(to[i]);
+              })
+              .toArray()).join();
+    System.arraycopy(kept, 0, edges, 0, kept.length);
+    return kept.length;
+  }
+
+  /**
+   * contract() adds every component's cheapest edge to the tree, uniting the
+   * components it joins, resets the cheapest edges for the next round, and
+   * drops the roots that are roots no longer.
+   *
+   * @return the number of edges added.
+   */
+  private int contract() {
+    int added = 0;
+    for (int k = 0; k < rootCount; k++) {
+      int v = roots[k];
+      long edge = cheapest.get(v);
+      if (edge == NONE) {
+        continue;
+      }
+      cheapest.set(v, NONE);
+      int i = PackedEdges.number(edge);
+      int root1 = components.find(from[i]);
+      int root2 = components.find(to[i]);
+      // both components may have chosen the same edge
+      if (root1 != root2) {
+        components.union(root1, root2);
+        tree.addEdge(csr.vertex(from[i]), csr.vertex(to[i]),
+                     PackedEdges.weight(edge));
+        added++;
+      }
+    }
+    int kept = 0;
+    for (int k = 0; k < rootCount; k++) {
+      if (components.find(roots[k]) == roots[k]) {
+        roots[kept++] = roots[k];
+      }
+    }
+    rootCount = kept;
+    return added;
+  }
+
+  /**
+   * offer() records a packed edge leaving the component rooted at "root",
+   * if it is cheaper than any recorded so far.  Safe for any number of
+   * threads at once.
+   */
+  private void offer(int root, long edge) {
+    long current = cheapest.get(root);
+    while (edge < current && !cheapest.compareAndSet(root, current, edge)) {
+      current = cheapest.get(root);
+    }
+  }
+
+  /**
+   * run() computes the tree.
+   */
+  private WUGraph run(ForkJoinPool pool) {
+    for (int v = 0; v < csr.vertexCount(); v++) {
+      cheapest.set(v, NONE);
+    }
+    int length = edges.length;
+    while (length > 0) {
+      pool.invoke(new CheapestEdges(0, length));
+      if (contract() == 0) {
+        break;
+      }
+      length = compact(length, pool);
+    }
+    edges = null;
+    return tree;
+  }
+
+  /**
+   * A CheapestEdges task offers each edge in a range of the edge array to
+   * the two components it joins.  DisjointSets.find() only shortens paths
+   * and no task unites sets, so tasks may call it concurrently:  a task
+   * shortening a path only ever points an element at one of its ancestors.
+   */
+  private class CheapestEdges extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int lo;
+    private final int hi;
+
+    CheapestEdges(int lo, int hi) {
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo > TASK_SIZE) {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new CheapestEdges(lo, mid), new CheapestEdges(mid, hi));
+        return;
+      }
+      for (int k = lo; k < hi; k++) {
+        long edge = edges[k];
+        int i = PackedEdges.number(edge);
+        int root1 = components.find(from[i]);
+        int root2 = components.find(to[i]);
+        if (root1 != root2) {
+          offer(root1, edge);
+          offer(root2, edge);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,665 @@
+/* DynamicMST.java */
+
+package graphalg;
+
+import graph.*;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The DynamicMST class keeps a minimum spanning forest of a WUGraph up to date
+ * as the graph changes, instead of recomputing it with Kruskal.minSpanTree()
+ * after every edit.  A DynamicMST is attached to a WUGraph when it is
+ * constructed; from then on, the graph must be changed only through the
+ * DynamicMST's addVertex(), removeVertex(), addEdge() and removeEdge(), which
+ * change the graph and the forest together.
+ *
+ * The forest is stored in a link-cut tree, in which each tree edge is a node
+ * of its own between its two endpoints.  A link-cut tree can join two trees,
+ * split one, or find the heaviest edge on the path between two vertices in
+ * O(log |V|) amortized time.
+ *
+ *   - Adding edge (u, v):  if u and v are in different trees, the edge joins
+ *     them.  Otherwise it closes a cycle, and replaces the heaviest edge on
+ *     the tree path from u to v if it is lighter.  O(log |V|) amortized.
+ *
+ *   - Removing a tree edge splits its tree in two.  The lightest non-tree
+ *     edge between the two halves, if there is one, takes its place.  It is
+ *     found by searching the edges of the smaller half, whose size the
+ *     link-cut tree reports in O(log |V|) time, so the cost is proportional
+ *     to the number of edges incident on the smaller half.  Removing a
+ *     non-tree edge is O(1).
+ *
+ * totalWeight(), treeEdgeCount() and isTreeEdge() take O(1) time, and
+ * connected() takes O(log |V|) amortized time.
+ */
+
+public class DynamicMST {
+
+  /**
+   * The value of a vertex node, lighter than any edge, so that the heaviest
+   * node on a path is always an edge if the path has one.
+   */
+  private static final int VERTEX_VALUE = Integer.MIN_VALUE;
+
+  /**
+   * The graph kept in step with the forest.
+   */
+  private final WUGraph graph;
+
+  /**
+   * Each vertex object's node number.
+   */
+  private final HashMap<Object, Integer> ids = new HashMap<Object, Integer>();
+
+  /**
+   * Every edge, keyed by its endpoints' node numbers, with its own node
+   * number as the value.
+   */
+  private final EdgeTable edgeNodes = new EdgeTable();
+
+  /*
+   * Nodes are numbered from 1; 0 means "no node".  Vertices and edges share
+   * the numbering, and freed numbers are reused.  For all nodes:
+   *
+   * left, right, up   children and parent in the node's splay tree; for the
+   *                   root of a splay tree, up is the path-parent
+   * flip              whether the node's splay subtree must be reversed
+   * value             an edge's weight, or VERTEX_VALUE
+   * heaviest          the node of greatest value in the splay subtree
+   * size              the number of vertices in the represented subtree:  the
+   *                   splay subtree and every tree hanging from it
+   * hanging           the number of vertices in trees hanging from the node
+   *                   by path-parent pointers
+   *
+   * For vertices:  object is the application's vertex, incident[v][0 ..
+   * degree[v] - 1] are its edges other than self-edges.  For edges:  ends
+   * are the endpoints, slots the edge's index in each endpoint's incident
+   * list, and inTree whether it is in the forest.
+   */
+  private int[] left;
+  private int[] right;
+  private int[] up;
+  private boolean[] flip;
+  private int[] value;
+  private int[] heaviest;
+  private int[] size;
+  private int[] hanging;
+  private Object[] object;
+  private int[][] incident;
+  private int[] degree;
+  private int[] end1;
+  private int[] end2;
+  private int[] slot1;
+  private int[] slot2;
+  private boolean[] inTree;
+
+  /**
+   * nodes is one more than the greatest node number ever used.  free[0 ..
+   * freeCount - 1] are the numbers of freed nodes.
+   */
+  private int nodes = 1;
+  private int[] free;
+  private int freeCount;
+
+  /**
+   * Scratch space for splay() and for the search for a replacement edge.
+   * A node is marked during a search if mark[node] == stamp.
+   */
+  private int[] stack;
+  private int[] queue;
+  private int[] mark;
+  private int stamp;
+
+  /**
+   * The total weight and number of edges of the forest.
+   */
+  private long totalWeight;
+  private int treeEdgeCount;
+
+  /**
+   * DynamicMST() attaches a dynamic minimum spanning forest to the WUGraph g,
+   * which is not changed.
+   *
+   * Running time:  O(|E| log |V|).
+   *
+   * @param g the graph whose minimum spanning forest is kept.
+   */
+  public DynamicMST(WUGraph g) {
+    graph = g;
+    allocate(16);
+    Object[] vertices = g.getVertices();
+    for (Object vertex : vertices) {
+      insertVertex(vertex);
+    }
+    for (Object vertex : vertices) {
+      Neighbors neighbors = g.getNeighbors(vertex);
+      if (neighbors == null) {
+        continue;
+      }
+      int u = ids.get(vertex);
+      for (int i = 0; i < neighbors.neighborList.length; i++) {
+        int v = ids.get(neighbors.neighborList[i]);
+        if (!edgeNodes.isEdge(u, v)) {
+          insertEdge(u, v, neighbors.weightList[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * access() makes the path from the root of x's tree to x a single splay
+   * tree, with x at its root and nothing below x on the path.
+   */
+  private void access(int x) {
+    for (int y = x, last = 0; y != 0; last = y, y = up[y]) {
+      splay(y);
+      // y's old lower path now hangs from y, and "last" no longer does
+      hanging[y] += size[right[y]] - size[last];
+      right[y] = last;
+      pull(y);
+    }
+    splay(x);
+  }
+
+  /**
+   * addEdge() adds an edge (u, v) to the graph, as WUGraph.addEdge() does,
+   * and updates the forest.  If the graph already contains (u, v), its weight
+   * is changed.
+   *
+   * Running time:  O(log |V|) amortized, plus the time to remove the old
+   * edge if the weight of a tree edge changes.
+   */
+  public void addEdge(Object u, Object v, int weight) {
+    if (!ids.containsKey(u) || !ids.containsKey(v)) {
+      return;
+    }
+    graph.addEdge(u, v, weight);
+    int x = ids.get(u);
+    int y = ids.get(v);
+    if (edgeNodes.isEdge(x, y)) {
+      deleteEdge(x, y);
+    }
+    insertEdge(x, y, weight);
+  }
+
+  /**
+   * addIncident() adds edge e to vertex v's incident list.
+   *
+   * @return e's index in the list.
+   */
+  private int addIncident(int v, int e) {
+    if (degree[v] == incident[v].length) {
+      incident[v] = Arrays.copyOf(incident[v], 2 * degree[v] + 1);
+    }
+    incident[v][degree[v]] = e;
+    return degree[v]++;
+  }
+
+  /**
+   * addVertex() adds a vertex to the graph, as WUGraph.addVertex() does.
+   *
+   * Running time:  O(1) amortized.
+   */
+  public void addVertex(Object vertex) {
+    graph.addVertex(vertex);
+    if (!ids.containsKey(vertex)) {
+      insertVertex(vertex);
+    }
+  }
+
+  /**
+   * allocate() resizes every node array to hold "capacity" nodes.
+   */
+  private void allocate(int capacity) {
+    left = Arrays.copyOf(left == null ? new int[0] : left, capacity);
+    right = Arrays.copyOf(right == null ? new int[0] : right, capacity);
+    up = Arrays.copyOf(up == null ? new int[0] : up, capacity);
+    flip = Arrays.copyOf(flip == null ? new boolean[0] : flip, capacity);
+    value = Arrays.copyOf(value == null ? new int[0] : value, capacity);
+    heaviest = Arrays.copyOf(heaviest == null ? new int[0] : heaviest,
+                             capacity);
+    size = Arrays.copyOf(size == null ? new int[0] : size, capacity);
+    hanging = Arrays.copyOf(hanging == null ? new int[0] : hanging, capacity);
+    object = Arrays.copyOf(object == null ? new Object[0] : object,
+                           capacity);
+    incident = Arrays.copyOf(incident == null ? new int[0][] : incident,
+                             capacity);
+    degree = Arrays.copyOf(degree == null ? new int[0] : degree, capacity);
+    end1 = Arrays.copyOf(end1 == null ? new int[0] : end1, capacity);
+    end2 = Arrays.copyOf(end2 == null ? new int[0] : end2, capacity);
+    slot1 = Arrays.copyOf(slot1 == null ? new int[0] : slot1, capacity);
+    slot2 = Arrays.copyOf(slot2 == null ? new int[0] : slot2, capacity);
+    inTree = Arrays.copyOf(inTree == null ? new boolean[0] : inTree,
+                           capacity);
+    free = Arrays.copyOf(free == null ? new int[0] : free, capacity);
+    stack = new int[capacity];
+    queue = new int[capacity];
+    mark = Arrays.copyOf(mark == null ? new int[0] : mark, capacity);
+  }
+
+  /**
+   * connected() returns true if u and v are vertices in the same tree of the
+   * forest, which is to say, in the same connected component of the graph.
+   *
+   * Running time:  O(log |V|) amortized.
+   */
+  public boolean connected(Object u, Object v) {
+    Integer x = ids.get(u);
+    Integer y = ids.get(v);
+    return x != null && y != null && findRoot(x) == findRoot(y);
+  }
+
+  /**
+   * cut() removes the tree edge between adjacent nodes x and y.
+   */
+  private void cut(int x, int y) {
+    makeRoot(x);
+    access(y);
+    // x is now y's left child, with nothing between them
+    left[y] = 0;
+    up[x] = 0;
+    pull(y);
+  }
+
+  /**
+   * cutEdge() removes edge e from the forest.
+   */
+  private void cutEdge(int e) {
+    cut(end1[e], e);
+    cut(e, end2[e]);
+    inTree[e] = false;
+    totalWeight -= value[e];
+    treeEdgeCount--;
+  }
+
+  /**
+   * deleteEdge() removes the edge between vertices x and y, which must
+   * exist, and replaces it in the forest if it was a tree edge.
+   */
+  private void deleteEdge(int x, int y) {
+    int e = edgeNodes.weight(x, y);
+    edgeNodes.remove(x, y);
+    if (x != y) {
+      removeIncident(end1[e], slot1[e]);
+      removeIncident(end2[e], slot2[e]);
+    }
+    if (inTree[e]) {
+      cutEdge(e);
+      int replacement = findReplacement(x, y);
+      if (replacement != 0) {
+        linkEdge(replacement);
+      }
+    }
+    freeNode(e);
+  }
+
+  /**
+   * findReplacement() returns the lightest non-tree edge joining the trees
+   * of vertices x and y, which must be different, or 0 if there is none.  It
+   * searches the edges incident on the smaller of the two trees.
+   */
+  private int findReplacement(int x, int y) {
+    makeRoot(x);
+    int sizeX = size[x];
+    makeRoot(y);
+    int start = sizeX <= size[y] ? x : y;
+    // mark every vertex of the smaller tree by walking its tree edges
+    stamp++;
+    mark[start] = stamp;
+    queue[0] = start;
+    int count = 1;
+    for (int i = 0; i < count; i++) {
+      int v = queue[i];
+      for (int k = 0; k < degree[v]; k++) {
+        int e = incident[v][k];
+        int w = end1[e] == v ? end2[e] : end1[e];
+        if (inTree[e] && mark[w] != stamp) {
+          mark[w] = stamp;
+          queue[count++] = w;
+        }
+      }
+    }
+    int best = 0;
+    for (int i = 0; i < count; i++) {
+      int v = queue[i];
+      for (int k = 0; k < degree[v]; k++) {
+        int e = incident[v][k];
+        int w = end1[e] == v ? end2[e] : end1[e];
+        if (mark[w] != stamp && (best == 0 || value[e] < value[best])) {
+          best = e;
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * findRoot() returns the root of x's tree.
+   */
+  private int findRoot(int x) {
+    access(x);
+    push(x);
+    while (left[x] != 0) {
+      x = left[x];
+      push(x);
+    }
+    splay(x);
+    return x;
+  }
+
+  /**
+   * freeNode() returns a node's number for reuse.
+   */
+  private void freeNode(int x) {
+    object[x] = null;
+    incident[x] = null;
+    free[freeCount++] = x;
+  }
+
+  /**
+   * insertEdge() adds an edge of weight "weight" between vertices x and y,
+   * which must not already be joined, and updates the forest.
+   */
+  private void insertEdge(int x, int y, int weight) {
+    int e = newNode(weight);
+    end1[e] = x;
+    end2[e] = y;
+    edgeNodes.put(x, y, e);
+    if (x == y) {
+      return;                                  // a self-edge is never needed
+    }
+    slot1[e] = addIncident(x, e);
+    slot2[e] = addIncident(y, e);
+    if (findRoot(x) != findRoot(y)) {
+      linkEdge(e);
+      return;
+    }
+    makeRoot(x);
+    access(y);
+    int heaviestOnPath = heaviest[y];
+    if (value[heaviestOnPath] > weight) {
+      cutEdge(heaviestOnPath);
+      linkEdge(e);
+    }
+  }
+
+  /**
+   * insertVertex() adds a vertex, with no edges, to the forest.
+   */
+  private void insertVertex(Object vertex) {
+    int v = newNode(VERTEX_VALUE);
+    size[v] = 1;
+    object[v] = vertex;
+    incident[v] = new int[2];
+    degree[v] = 0;
+    ids.put(vertex, v);
+  }
+
+  /**
+   * isRoot() returns true if x is the root of its splay tree.
+   */
+  private boolean isRoot(int x) {
+    return up[x] == 0 || (left[up[x]] != x && right[up[x]] != x);
+  }
+
+  /**
+   * isTreeEdge() returns true if (u, v) is an edge of the minimum spanning
+   * forest.
+   *
+   * Running time:  O(1).
+   */
+  public boolean isTreeEdge(Object u, Object v) {
+    Integer x = ids.get(u);
+    Integer y = ids.get(v);
+    return x != null && y != null && edgeNodes.isEdge(x, y) &&
+           inTree[edgeNodes.weight(x, y)];
+  }
+
+  /**
+   * link() makes node x, the root of its tree, a child of node y.
+   */
+  private void link(int x, int y) {
+    makeRoot(x);
+    access(y);
+    up[x] = y;
+    hanging[y] += size[x];
+    pull(y);
+  }
+
+  /**
+   * linkEdge() adds edge e, whose endpoints are in different trees, to the
+   * forest.
+   */
+  private void linkEdge(int e) {
+    link(end1[e], e);
+    link(e, end2[e]);
+    inTree[e] = true;
+    totalWeight += value[e];
+    treeEdgeCount++;
+  }
+
+  /**
+   * makeRoot() makes x the root of its tree.
+   */
+  private void makeRoot(int x) {
+    access(x);
+    flip[x] = !flip[x];
+  }
+
+  /**
+   * minSpanTree() returns a WUGraph that represents the current minimum
+   * spanning forest.  It is the same weight as Kruskal.minSpanTree() of the
+   * attached graph would return.
+   *
+   * Running time:  O(|V|).
+   */
+  public WUGraph minSpanTree() {
+    WUGraph tree = new WUGraph();
+    for (int x = 1; x < nodes; x++) {
+      if (object[x] != null) {
+        tree.addVertex(object[x]);
+      }
+    }
+    for (int x = 1; x < nodes; x++) {
+      if (object[x] != null) {
+        for (int k = 0; k < degree[x]; k++) {
+          int e = incident[x][k];
+          if (inTree[e] && end1[e] == x) {
+            tree.addEdge(object[x], object[end2[e]], value[e]);
+          }
+        }
+      }
+    }
+    return tree;
+  }
+
+  /**
+   * newNode() returns a fresh node of value "value", alone in its own tree.
+   */
+  private int newNode(int value) {
+    int x;
+    if (freeCount > 0) {
+      x = free[--freeCount];
+    } else {
+      if (nodes == left.length) {
+        allocate(2 * nodes);
+      }
+      x = nodes++;
+    }
+    left[x] = 0;
+    right[x] = 0;
+    up[x] = 0;
+    flip[x] = false;
+    this.value[x] = value;
+    heaviest[x] = x;
+    size[x] = 0;
+    hanging[x] = 0;
+    inTree[x] = false;
+    return x;
+  }
+
+  /**
+   * pull() recomputes x's heaviest node and size from its children's.
+   */
+  private void pull(int x) {
+    int l = left[x];
+    int r = right[x];
+    int best = x;
+    if (l != 0 && value[heaviest[l]] > value[best]) {
+      best = heaviest[l];
+    }
+    if (r != 0 && value[heaviest[r]] > value[best]) {
+      best = heaviest[r];
+    }
+    heaviest[x] = best;
+    size[x] = (object[x] != null ? 1 : 0) + size[l] + size[r] + hanging[x];
+  }
+
+  /**
+   * push() carries out a pending reversal of x's splay subtree by swapping
+   * x's children and passing the reversal on to them.
+   */
+  private void push(int x) {
+    if (flip[x]) {
+      int swap = left[x];
+      left[x] = right[x];
+      right[x] = swap;
+      flip[left[x]] = !flip[left[x]];
+      flip[right[x]] = !flip[right[x]];
+      flip[0] = false;
+      flip[x] = false;
+    }
+  }
+
+  /**
+   * removeEdge() removes the edge (u, v) from the graph, as
+   * WUGraph.removeEdge() does, and updates the forest.
+   *
+   * Running time:  O(1) for a non-tree edge.  For a tree edge, O(log |V|)
+   * amortized plus O(d), where d is the total degree of the vertices on the
+   * smaller side of the edge.
+   */
+  public void removeEdge(Object u, Object v) {
+    Integer x = ids.get(u);
+    Integer y = ids.get(v);
+    if (x == null || y == null || !edgeNodes.isEdge(x, y)) {
+      return;
+    }
+    graph.removeEdge(u, v);
+    deleteEdge(x, y);
+  }
+
+  /**
+   * removeIncident() removes the edge at index "slot" of vertex v's incident
+   * list, moving the last edge of the list into its place.
+   */
+  private void removeIncident(int v, int slot) {
+    int last = incident[v][--degree[v]];
+    incident[v][slot] = last;
+    if (end1[last] == v) {
+      slot1[last] = slot;
+    } else {
+      slot2[last] = slot;
+    }
+  }
+
+  /**
+   * removeVertex() removes a vertex and its edges from the graph, as
+   * WUGraph.removeVertex() does, and updates the forest.
+   *
+   * Running time:  that of removing each incident edge.
+   */
+  public void removeVertex(Object vertex) {
+    Integer v = ids.get(vertex);
+    if (v == null) {
+      return;
+    }
+    graph.removeVertex(vertex);
+    while (degree[v] > 0) {
+      int e = incident[v][degree[v] - 1];
+      deleteEdge(end1[e], end2[e]);
+    }
+    if (edgeNodes.isEdge(v, v)) {
+      deleteEdge(v, v);
+    }
+    ids.remove(vertex);
+    freeNode(v);
+  }
+
+  /**
+   * rotate() moves x above its parent in their splay tree.
+   */
+  private void rotate(int x) {
+    int p = up[x];
+    int g = up[p];
+    boolean parentIsRoot = isRoot(p);
+    if (left[p] == x) {
+      left[p] = right[x];
+      if (right[x] != 0) {
+        up[right[x]] = p;
+      }
+      right[x] = p;
+    } else {
+      right[p] = left[x];
+      if (left[x] != 0) {
+        up[left[x]] = p;
+      }
+      left[x] = p;
+    }
+    up[p] = x;
+    up[x] = g;
+    if (!parentIsRoot) {
+      if (left[g] == p) {
+        left[g] = x;
+      } else {
+        right[g] = x;
+      }
+    }
+    pull(p);
+    pull(x);
+  }
+
+  /**
+   * splay() moves x to the root of its splay tree.
+   */
+  private void splay(int x) {
+    int top = 0;
+    stack[top++] = x;
+    for (int y = x; !isRoot(y); y = up[y]) {
+      stack[top++] = up[y];
+    }
+    while (top > 0) {
+      push(stack[--top]);
+    }
+    while (!isRoot(x)) {
+      int p = up[x];
+      if (!isRoot(p)) {
+        int g = up[p];
+        rotate((left[g] == p) == (left[p] == x) ? p : x);
+      }
+      rotate(x);
+    }
+  }
+
+  /**
+   * totalWeight() returns the total weight of the minimum spanning forest.
+   *
+   * Running time:  O(1).
+   */
+  public long totalWeight() {
+    return totalWeight;
+  }
+
+  /**
+   * treeEdgeCount() returns the number of edges in the minimum spanning
+   * forest:  the number of vertices minus the number of connected
+   * components.
+   *
+   * Running time:  O(1).
+   */
+  public int treeEdgeCount() {
+    return treeEdgeCount;
+  }
+
+}
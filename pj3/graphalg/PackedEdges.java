@@ -0,0 +1,89 @@
+/* PackedEdges.java */
+
+package graphalg;
+
+import graph.*;
+
+/**
+ * The PackedEdges class lists the edges of a CSRGraph in the form that
+ * ParallelKruskal and Boruvka work on.  The edges, other than self-edges,
+ * which are never in a spanning tree, are numbered from zero, and each is
+ * packed into a single long with its weight in the high 32 bits and its
+ * number in the low 32.  Comparing two packed edges as longs therefore
+ * compares their weights and breaks ties by edge number, so packed edges
+ * sort as primitives and no two are equal.
+ */
+
+class PackedEdges {
+
+  /**
+   * from[i] and to[i] are the vertex numbers of the endpoints of edge number
+   * i, with from[i] < to[i].
+   */
+  final int[] from;
+  final int[] to;
+
+  /**
+   * edges[i] is edge number i, packed.
+   */
+  final long[] edges;
+
+  /**
+   * PackedEdges() lists the edges of "csr".
+   *
+   * Running time:  O(|V| + |E|).
+   */
+  PackedEdges(CSRGraph csr) {
+    int count = 0;
+    for (int v = 0; v < csr.vertexCount(); v++) {
+      for (int e = csr.edgeStart(v); e < csr.edgeEnd(v); e++) {
+        if (csr.target(e) > v) {
+          count++;
+        }
+      }
+    }
+    from = new int[count];
+    to = new int[count];
+    edges = new long[count];
+    count = 0;
+    for (int v = 0; v < csr.vertexCount(); v++) {
+      for (int e = csr.edgeStart(v); e < csr.edgeEnd(v); e++) {
+        if (csr.target(e) > v) {
+          from[count] = v;
+          to[count] = csr.target(e);
+          edges[count] = ((long) csr.weight(e) << 32) | count;
+          count++;
+        }
+      }
+    }
+  }
+
+  /**
+   * emptyForest() returns a new WUGraph with the vertices of "csr" and no
+   * edges, to which a spanning forest's edges can be added.
+   *
+   * Running time:  O(|V|).
+   */
+  static WUGraph emptyForest(CSRGraph csr) {
+    WUGraph forest = new WUGraph();
+    for (int v = 0; v < csr.vertexCount(); v++) {
+      forest.addVertex(csr.vertex(v));
+    }
+    return forest;
+  }
+
+  /**
+   * number() returns the edge number of a packed edge.
+   */
+  static int number(long edge) {
+    return (int) edge;
+  }
+
+  /**
+   * weight() returns the weight of a packed edge.
+   */
+  static int weight(long edge) {
+    return (int) (edge >> 32);
+  }
+
+}
@@ -0,0 +1,214 @@
+/* ParallelKruskal.java */
+
+package graphalg;
+
+import graph.*;
+import java.util.Arrays;
+import java.util.Random;
+import set.*;
+
+/**
+ * The ParallelKruskal class contains the method minSpanTree(), which computes
+ * a minimum spanning tree (or forest) of a WUGraph with the filter-Kruskal
+ * algorithm, using every available core for the sorting and filtering.
+ *
+ * Kruskal's algorithm spends most of its time sorting edges, and most of the
+ * sorted edges turn out to join two vertices already connected by lighter
+ * ones.  Filter-Kruskal sorts only what it must.  It splits the edges around
+ * a pivot weight, runs on the light edges first, then throws away every
+ * heavy edge whose endpoints the light edges have already connected before
+ * it recurses on the heavy ones.  On sparse graphs, such as road networks,
+ * most heavy edges are discarded without ever being sorted.
+ *
+ * Each edge is packed into a single long by PackedEdges, with its weight in
+ * the high 32 bits and its number in the low 32, so the edges sort as
+ * primitives with Arrays.parallelSort() and ties between equal weights are
+ * broken by edge number.  The tree has the same total weight as the one
+ * found by Kruskal.minSpanTree().
+ */
+
+public class ParallelKruskal {
+
+  /**
+   * Edge ranges no longer than this are sorted and scanned directly instead
+   * of being partitioned further.
+   */
+  private static final int BASE_CASE = 1 << 16;
+
+  /**
+   * The number of edges sampled to choose a pivot.
+   */
+  private static final int SAMPLE = 255;
+
+  /**
+   * minSpanTree() returns a WUGraph that represents the minimum spanning tree
+   * of the WUGraph g.  The original WUGraph g is NOT changed.  If g is not
+   * connected, the result is a minimum spanning forest:  a minimum spanning
+   * tree of each connected component.
+   *
+   * @param g The weighted, undirected graph whose MST we want to compute.
+   * @return A newly constructed WUGraph representing the MST of g.
+   */
+  public static WUGraph minSpanTree(WUGraph g) {
+    return new ParallelKruskal(new CSRGraph(g)).run();
+  }
+
+  /**
+   * The graph being spanned.
+   */
+  private final CSRGraph csr;
+
+  /**
+   * The endpoints of each edge, by edge number, as listed by PackedEdges.
+   */
+  private final int[] from;
+  private final int[] to;
+
+  /**
+   * The edges not yet examined, packed as described above.
+   */
+  private long[] edges;
+
+  /**
+   * The components formed by the tree edges chosen so far.
+   */
+  private final DisjointSets components;
+
+  /**
+   * The tree being built, and the number of edges it needs to be complete
+   * if the graph is connected.
+   */
+  private final WUGraph tree;
+  private int missing;
+
+  /**
+   * Random source for pivot samples.  Seeded, so that every run does the
+   * same work.
+   */
+  private final Random random = new Random(0);
+
+  /**
+   * ParallelKruskal() sets up a computation of the MST of a graph.
+   */
+  private ParallelKruskal(CSRGraph csr) {
+    this.csr = csr;
+    PackedEdges packed = new PackedEdges(csr);
+    from = packed.from;
+    to = packed.to;
+    edges = packed.edges;
+    components = new DisjointSets(csr.vertexCount());
+    tree = PackedEdges.emptyForest(csr);
+    missing = csr.vertexCount() - 1;
+  }
+
+  /**
+   * connects() returns true if a packed edge joins two different components.
+   * It only reads the disjoint sets (find() shortens paths, but only ever
+   * points an element at one of its ancestors), so any number of threads
+   * may call it at once, provided none is uniting sets.
+   */
+  private boolean connects(long edge) {
+    int i = PackedEdges.number(edge);
+    return components.find(from[i]) != components.find(to[i]);
+  }
+
+  /**
+   * filter() removes from edges[lo .. hi - 1] every edge whose endpoints are
+   * already in the same component, keeping the rest in order at the front
+   * of the range.
+   *
+   * @return the end of the kept edges.
+   */
+  private int filter(int lo, int hi) {
+    long[] kept = Arrays.stream(edges, lo, hi).parallel()
+                        .filter(this::connects).toArray();
+    System.arraycopy(kept, 0, edges, lo, kept.length);
+    return lo + kept.length;
+  }
+
+  /**
+   * filterKruskal() adds to the tree every MST edge in edges[lo .. hi - 1],
+   * which must all be heavier than any edge examined before.
+   */
+  private void filterKruskal(int lo, int hi) {
+    if (missing == 0) {
+      return;
+    }
+    if (hi - lo <= BASE_CASE) {
+      kruskal(lo, hi);
+      return;
+    }
+    long pivot = pivot(lo, hi);
+    int mid = partition(lo, hi, pivot);
+    if (mid == lo || mid == hi) {
+      // a poor pivot; sort the whole range rather than loop
+      kruskal(lo, hi);
+      return;
+    }
+    filterKruskal(lo, mid);
+    filterKruskal(mid, filter(mid, hi));
+  }
+
+  /**
+   * kruskal() sorts edges[lo .. hi - 1] and adds each edge that joins two
+   * components to the tree, in order, as Kruskal's algorithm does.
+   */
+  private void kruskal(int lo, int hi) {
+    Arrays.parallelSort(edges, lo, hi);
+    for (int k = lo; k < hi && missing > 0; k++) {
+      int i = PackedEdges.number(edges[k]);
+      int root1 = components.find(from[i]);
+      int root2 = components.find(to[i]);
+      if (root1 != root2) {
+        components.union(root1, root2);
+        tree.addEdge(csr.vertex(from[i]), csr.vertex(to[i]),
+                     PackedEdges.weight(edges[k]));
+        missing--;
+      }
+    }
+  }
+
+  /**
+   * partition() rearranges edges[lo .. hi - 1] so that the edges no heavier
+   * than "pivot" come first.
+   *
+   * @return the index of the first edge heavier than "pivot".
+   */
+  private int partition(int lo, int hi, long pivot) {
+    int i = lo;
+    int j = hi - 1;
+    while (i <= j) {
+      if (edges[i] <= pivot) {
+        i++;
+      } else {
+        long swap = edges[i];
+        edges[i] = edges[j];
+        edges[j] = swap;
+        j--;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * pivot() returns the median of a random sample of edges[lo .. hi - 1].
+   */
+  private long pivot(int lo, int hi) {
+    long[] sample = new long[SAMPLE];
+    for (int k = 0; k < SAMPLE; k++) {
+      sample[k] = edges[lo + random.nextInt(hi - lo)];
+    }
+    Arrays.sort(sample);
+    return sample[SAMPLE / 2];
+  }
+
+  /**
+   * run() computes the tree.
+   */
+  private WUGraph run() {
+    filterKruskal(0, edges.length);
+    edges = null;
+    return tree;
+  }
+
+}
@@ -0,0 +1,148 @@
+/* BigDisjointSets.java */
+
+package set;
+
+import java.util.Arrays;
+
+/**
+ *  A disjoint sets ADT for more elements than an int can number.  Performs
+ *  union-by-size and path halving, like DisjointSets, whose conventions it
+ *  follows:  there is no error checking, and union() must be given two
+ *  distinct roots.
+ *
+ *  Elements are represented by longs, numbered from zero.  A Java array holds
+ *  fewer than 2^31 entries, so the parent of each element is kept in a
+ *  sequence of arrays (chunks) of 2^24 longs each, of which only the last may
+ *  be shorter.  A negative entry marks a root and holds minus the size of its
+ *  tree, as in DisjointSets.  Memory use is eight bytes per element.
+ **/
+
+public class BigDisjointSets {
+
+  private static final int CHUNK_BITS = 24;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private final long[][] chunks;
+  private final long numElements;
+
+  /**
+   *  Construct a disjoint sets object.
+   *
+   *  @param numElements the initial number of elements--also the initial
+   *  number of disjoint sets, since every element is initially in its own set.
+   **/
+  public BigDisjointSets(long numElements) {
+    this.numElements = numElements;
+    int count = (int) ((numElements + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+    chunks = new long[count][];
+    for (int c = 0; c < count; c++) {
+      long remaining = numElements - ((long) c << CHUNK_BITS);
+      chunks[c] = new long[(int) Math.min(CHUNK_SIZE, remaining)];
+      Arrays.fill(chunks[c], -1L);
+    }
+  }
+
+  /**
+   *  find() finds the (long) name of the set containing a given element.
+   *  Performs path halving along the way, in constant stack space.
+   *
+   *  @param x the element sought.
+   *  @return the set containing x.
+   **/
+  public long find(long x) {
+    while (get(x) >= 0) {
+      long parent = get(x);
+      long grandparent = get(parent);
+      if (grandparent < 0) {
+        return parent;                                // x's parent is the root
+      }
+      set(x, grandparent);                        // point x at its grandparent
+      x = grandparent;
+    }
+    return x;                           // x is the root of the tree; return it
+  }
+
+  /**
+   *  findAll() finds the name of the set containing each of an array of
+   *  elements.
+   *
+   *  @param elements the elements sought.
+   *  @param names an array at least as long as "elements", which receives
+   *  the name of the set containing elements[i] at index i.
+   *  @return names.
+   **/
+  public long[] findAll(long[] elements, long[] names) {
+    for (int i = 0; i < elements.length; i++) {
+      names[i] = find(elements[i]);
+    }
+    return names;
+  }
+
+  /**
+   *  get() returns the entry of element x:  its parent, or minus the size of
+   *  its tree if x is a root.
+   **/
+  private long get(long x) {
+    return chunks[(int) (x >>> CHUNK_BITS)][(int) (x & CHUNK_MASK)];
+  }
+
+  /**
+   *  length() returns the number of elements.
+   *
+   *  @return the number of elements.
+   **/
+  public long length() {
+    return numElements;
+  }
+
+  /**
+   *  set() changes the entry of element x.
+   **/
+  private void set(long x, long entry) {
+    chunks[(int) (x >>> CHUNK_BITS)][(int) (x & CHUNK_MASK)] = entry;
+  }
+
+  /**
+   *  union() unites two disjoint sets into a single set.  A union-by-size
+   *  heuristic is used to choose the new root.  This method will corrupt
+   *  the data structure if root1 and root2 are not roots of their respective
+   *  sets, or if they're identical.
+   *
+   *  @param root1 the root of the first set.
+   *  @param root2 the root of the other set.
+   **/
+  public void union(long root1, long root2) {
+    long size1 = get(root1);
+    long size2 = get(root2);
+    if (size2 < size1) {                               // root2 has larger tree
+      set(root2, size1 + size2);           // update # of items in root2's tree
+      set(root1, root2);                                 // make root2 new root
+    } else {                                  // root1 has equal or larger tree
+      set(root1, size1 + size2);           // update # of items in root1's tree
+      set(root2, root1);                                 // make root1 new root
+    }
+  }
+
+  /**
+   *  unionAll() unites the sets containing xs[i] and ys[i], for every i, in
+   *  order.  Unlike union(), it accepts any elements, not just roots, and
+   *  skips pairs already in the same set.
+   *
+   *  @param xs the first element of each pair.
+   *  @param ys the second element of each pair; as long as xs.
+   *  @return the number of pairs that united two different sets.
+   **/
+  public int unionAll(long[] xs, long[] ys) {
+    int merges = 0;
+    for (int i = 0; i < xs.length; i++) {
+      long root1 = find(xs[i]);
+      long root2 = find(ys[i]);
+      if (root1 != root2) {
+        union(root1, root2);
+        merges++;
+      }
+    }
+    return merges;
+  }
+}
@@ -0,0 +1,125 @@
+/* ConcurrentDisjointSets.java */
+
+package set;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ *  A disjoint sets ADT that any number of threads may use at once, without
+ *  locks.  Unlike DisjointSets, union() accepts any two elements, not just
+ *  roots, and the methods check nothing else either.
+ *
+ *  Each element's parent is kept in an AtomicIntegerArray; a root is its own
+ *  parent.  union() links one root to another with a single compareAndSet(),
+ *  which fails, and is retried, if another thread changed the root first.
+ *  Roots are linked by index (the root with the smaller index goes under
+ *  the other) rather than by size, since a size could not be updated in the
+ *  same atomic step as the link.  find() shortens paths by halving:  each
+ *  element on the path is pointed at its grandparent with compareAndSet(),
+ *  which never undoes another thread's work, because a parent only ever
+ *  moves up its tree.
+ *
+ *  Every operation is linearizable:  find(), union() and sameSet() each
+ *  appear to take effect at a single instant between their call and their
+ *  return.
+ *
+ *  Elements are represented by ints, numbered from zero.
+ **/
+
+public class ConcurrentDisjointSets {
+
+  private final AtomicIntegerArray parent;
+
+  /**
+   *  Construct a disjoint sets object.
+   *
+   *  @param numElements the initial number of elements--also the initial
+   *  number of disjoint sets, since every element is initially in its own set.
+   **/
+  public ConcurrentDisjointSets(int numElements) {
+    parent = new AtomicIntegerArray(numElements);
+    for (int i = 0; i < numElements; i++) {
+      parent.set(i, i);
+    }
+  }
+
+  /**
+   *  find() finds the (int) name of the set containing a given element.
+   *  Performs path halving along the way.  The name of a set can change when
+   *  another thread unites it with another set.
+   *
+   *  @param x the element sought.
+   *  @return the set containing x.
+   **/
+  public int find(int x) {
+    int p = parent.get(x);
+    while (p != x) {
+      int gp = parent.get(p);
+      if (gp != p) {
+        parent.compareAndSet(x, p, gp);        // halve the path; may fail
+      }
+      x = gp;
+      p = parent.get(x);
+    }
+    return x;
+  }
+
+  /**
+   *  length() returns the number of elements.
+   *
+   *  @return the number of elements.
+   **/
+  public int length() {
+    return parent.length();
+  }
+
+  /**
+   *  sameSet() returns true if two elements are in the same set.
+   *
+   *  @param x one element.
+   *  @param y the other element.
+   *  @return true if x and y are in the same set.
+   **/
+  public boolean sameSet(int x, int y) {
+    while (true) {
+      int rootX = find(x);
+      int rootY = find(y);
+      if (rootX == rootY) {
+        return true;
+      }
+      // If rootX is still a root, the two were in different sets when
+      // rootY was found; otherwise a union intervened, so look again.
+      if (parent.get(rootX) == rootX) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   *  union() unites the sets containing two elements into a single set.  It
+   *  does nothing if they are already in the same set.
+   *
+   *  @param x an element of the first set.
+   *  @param y an element of the other set.
+   *  @return true if the sets were united, false if x and y were already in
+   *  the same set.
+   **/
+  public boolean union(int x, int y) {
+    while (true) {
+      int rootX = find(x);
+      int rootY = find(y);
+      if (rootX == rootY) {
+        return false;
+      }
+      if (rootX > rootY) {                  // link the smaller index below
+        int swap = rootX;
+        rootX = rootY;
+        rootY = swap;
+      }
+      if (parent.compareAndSet(rootX, rootX, rootY)) {
+        return true;
+      }
+      // rootX stopped being a root; look again
+    }
+  }
+}